@@ -0,0 +1,83 @@
+package redes.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import redes.lib.Chunk;
+import redes.lib.ChunkType;
+import redes.lib.Png;
+import redes.lib.PngGenerator;
+
+/**
+ * Builds the inputs of the benchmarks, always the same for the same parameters
+ */
+final class BenchmarkImages {
+
+    private static final long SEED = 42;
+
+    private BenchmarkImages() {
+    }
+
+    /**
+     * Creates random bytes, as found in compressed image data
+     *
+     * @param length The number of bytes
+     * @return The bytes
+     */
+    static byte[] randomBytes(int length) {
+        var bytes = new byte[length];
+        new Random(SEED).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Creates a message made of lower case letters and spaces, which every
+     * encoding accepts
+     *
+     * @param length The number of characters
+     * @return The message
+     */
+    static String message(int length) {
+        var random = new Random(SEED);
+        var message = new StringBuilder(length);
+        for (var i = 0; i < length; i++) {
+            message.append(i % 6 == 5 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return message.toString();
+    }
+
+    /**
+     * Creates an image with a header, image data of the given size, a hidden
+     * message and an end chunk
+     *
+     * @param imageSize     The number of bytes of image data
+     * @param messageLength The number of characters of the hidden message
+     * @return The image
+     */
+    static Png png(int imageSize, int messageLength) {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(new Chunk(ChunkType.fromString("IHDR"), randomBytes(13)));
+        chunks.add(new Chunk(ChunkType.fromString("IDAT"), randomBytes(imageSize)));
+        var message = message(messageLength).getBytes(StandardCharsets.US_ASCII);
+        chunks.add(new Chunk(ChunkType.fromString(ChunkType.HIDDEN_MESSAGE), message));
+        chunks.add(new Chunk(ChunkType.fromString("IEND"), new byte[0]));
+        return Png.fromChunks(chunks);
+    }
+
+    /**
+     * Creates a valid image of the given layout, its hidden message encrypted
+     * with {@code CAESAR}
+     *
+     * @param size            The length of the image, in bytes
+     * @param idatChunks      The number of chunks the image data is split in
+     * @param ancillaryChunks The number of {@code tEXt} chunks
+     * @param placement       Where the hidden message chunk is
+     * @return The image
+     */
+    static Png generated(long size, int idatChunks, int ancillaryChunks, PngGenerator.Placement placement) {
+        return new PngGenerator(SEED).size(size).idatChunks(idatChunks, PngGenerator.Split.RANDOM)
+                .ancillaryChunks(ancillaryChunks).hiddenChunks(1, placement).generate();
+    }
+}
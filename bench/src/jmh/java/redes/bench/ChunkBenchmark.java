@@ -0,0 +1,60 @@
+package redes.bench;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.primitives.Bytes;
+
+import redes.lib.Chunk;
+import redes.lib.ChunkType;
+import redes.lib.CrcPolicy;
+
+/**
+ * Parsing a single chunk, with and without its CRC check
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChunkBenchmark {
+
+    @Param({ "16", "4096", "65536" })
+    int chunkSize;
+
+    private byte[] bytes;
+
+    private List<Byte> byteList;
+
+    @Setup
+    public void setUp() {
+        bytes = new Chunk(ChunkType.fromString("IDAT"), BenchmarkImages.randomBytes(chunkSize)).asByteArray();
+        byteList = Bytes.asList(bytes);
+    }
+
+    @Benchmark
+    public Chunk fromBytes() {
+        return Chunk.fromBytes(bytes);
+    }
+
+    @Benchmark
+    public Chunk fromByteList() {
+        return Chunk.fromBytes(byteList);
+    }
+
+    /**
+     * Baseline without the CRC check
+     */
+    @Benchmark
+    public Chunk fromBufferUnchecked() {
+        return Chunk.fromBuffer(ByteBuffer.wrap(bytes), CrcPolicy.NONE);
+    }
+}
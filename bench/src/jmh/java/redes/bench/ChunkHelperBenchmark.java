@@ -0,0 +1,54 @@
+package redes.bench;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import redes.lib.ChunkHelper;
+
+/**
+ * Conversions between integers and their bytes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChunkHelperBenchmark {
+
+    /**
+     * Not a constant, so the conversions are not folded away
+     */
+    private int value = 0x1234ABCD;
+
+    private List<Byte> byteList;
+
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        byteList = ChunkHelper.fromIntToBytes(value);
+        buffer = ByteBuffer.allocate(4).putInt(0, value);
+    }
+
+    @Benchmark
+    public Integer fromBytesToInt() {
+        return ChunkHelper.fromBytesToInt(byteList);
+    }
+
+    @Benchmark
+    public int readInt() {
+        return ChunkHelper.readInt(buffer, 0);
+    }
+
+    @Benchmark
+    public List<Byte> fromIntToBytes() {
+        return ChunkHelper.fromIntToBytes(value);
+    }
+}
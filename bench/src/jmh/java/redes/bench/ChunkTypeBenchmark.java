@@ -0,0 +1,55 @@
+package redes.bench;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.primitives.Bytes;
+
+import redes.lib.ChunkType;
+
+/**
+ * Validating a chunk type from its bytes or its name
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChunkTypeBenchmark {
+
+    private String name = ChunkType.HIDDEN_MESSAGE;
+
+    private List<Byte> byteList;
+
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        var bytes = name.getBytes(StandardCharsets.US_ASCII);
+        byteList = Bytes.asList(bytes);
+        buffer = ByteBuffer.wrap(bytes);
+    }
+
+    @Benchmark
+    public ChunkType fromBytes() {
+        return ChunkType.fromBytes(byteList);
+    }
+
+    @Benchmark
+    public ChunkType fromString() {
+        return ChunkType.fromString(name);
+    }
+
+    @Benchmark
+    public ChunkType fromBuffer() {
+        return ChunkType.fromBuffer(buffer, 0);
+    }
+}
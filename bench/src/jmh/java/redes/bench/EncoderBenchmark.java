@@ -0,0 +1,73 @@
+package redes.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import redes.lib.Encoder;
+import redes.lib.EncodingOptions;
+
+/**
+ * Encoding and decoding hidden messages with every encoding, as {@code String}s
+ * and in place on bytes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EncoderBenchmark {
+
+    private static final int OFFSET = 3;
+
+    @Param({ "CAESAR", "XOR" })
+    EncodingOptions encoding;
+
+    @Param({ "16", "256", "4096" })
+    int messageLength;
+
+    private String message;
+
+    private String encoded;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        message = BenchmarkImages.message(messageLength);
+        encoded = Encoder.encode(message, encoding, OFFSET);
+        bytes = message.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Encoder.encode(message, encoding, OFFSET);
+    }
+
+    @Benchmark
+    public String decode() {
+        return Encoder.decode(encoded, encoding, OFFSET);
+    }
+
+    /**
+     * Encodes the same bytes again on each call, which costs the same as encoding
+     * fresh ones
+     */
+    @Benchmark
+    public byte[] encodeBytes() {
+        Encoder.encode(bytes, 0, bytes.length, encoding, OFFSET);
+        return bytes;
+    }
+
+    @Benchmark
+    public byte[] decodeBytes() {
+        Encoder.decode(bytes, 0, bytes.length, encoding, OFFSET);
+        return bytes;
+    }
+}
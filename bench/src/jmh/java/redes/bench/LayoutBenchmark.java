@@ -0,0 +1,75 @@
+package redes.bench;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import redes.lib.Chunk;
+import redes.lib.ChunkType;
+import redes.lib.Png;
+import redes.lib.PngGenerator;
+import redes.lib.PngScanner;
+
+/**
+ * Finding the hidden message in valid images of different layouts: where the
+ * message is, and how many chunks surround it
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LayoutBenchmark {
+
+    /**
+     * Size of the buffers fed to the scanner, as read from a socket
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    @Param({ "1048576" })
+    long imageSize;
+
+    @Param({ "1", "64" })
+    int idatChunks;
+
+    @Param({ "0", "32" })
+    int ancillaryChunks;
+
+    @Param({ "START", "MIDDLE", "END" })
+    PngGenerator.Placement placement;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        bytes = BenchmarkImages.generated(imageSize, idatChunks, ancillaryChunks, placement).asByteArray();
+    }
+
+    /**
+     * Scans the image in socket sized buffers until the hidden message, as the
+     * server does when replying early
+     */
+    @Benchmark
+    public Chunk scanToMessage() {
+        var scanner = new PngScanner(type -> type.is(ChunkType.HIDDEN_MESSAGE));
+        for (var offset = 0; offset < bytes.length; offset += BUFFER_SIZE) {
+            var input = ByteBuffer.wrap(bytes, offset, Math.min(BUFFER_SIZE, bytes.length - offset));
+            var chunk = scanner.next(input);
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Png fromBytes() {
+        return Png.fromBytes(bytes);
+    }
+}
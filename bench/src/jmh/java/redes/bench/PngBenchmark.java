@@ -0,0 +1,65 @@
+package redes.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.primitives.Bytes;
+
+import redes.lib.Png;
+
+/**
+ * Parsing and writing whole images, from the array and from the list of bytes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PngBenchmark {
+
+    @Param({ "1024", "65536", "1048576" })
+    int imageSize;
+
+    @Param({ "16", "1024" })
+    int messageLength;
+
+    private byte[] bytes;
+
+    private List<Byte> byteList;
+
+    private Png png;
+
+    @Setup
+    public void setUp() {
+        png = BenchmarkImages.png(imageSize, messageLength);
+        bytes = png.asByteArray();
+        byteList = Bytes.asList(bytes);
+    }
+
+    @Benchmark
+    public Png fromBytes() {
+        return Png.fromBytes(bytes);
+    }
+
+    @Benchmark
+    public Png fromByteList() {
+        return Png.fromBytes(byteList);
+    }
+
+    @Benchmark
+    public byte[] asByteArray() {
+        return png.asByteArray();
+    }
+
+    @Benchmark
+    public List<Byte> asBytes() {
+        return png.asBytes();
+    }
+}
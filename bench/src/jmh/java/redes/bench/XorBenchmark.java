@@ -0,0 +1,66 @@
+package redes.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import redes.lib.XorKernel;
+
+/**
+ * XORing payloads in place with each kernel, from a byte at a time to the
+ * lanes of the Vector API
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XorBenchmark {
+
+    private static final byte[] KEY = "projetoRedes".getBytes(StandardCharsets.US_ASCII);
+
+    @Param({ "SCALAR", "LONGS", "VECTOR" })
+    String kernelName;
+
+    @Param({ "64", "4096", "1048576", "8388608" })
+    int payloadSize;
+
+    private XorKernel kernel;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        switch (kernelName) {
+        case "SCALAR":
+            kernel = XorKernel.scalar(KEY);
+            break;
+        case "LONGS":
+            kernel = XorKernel.longs(KEY);
+            break;
+        default:
+            kernel = XorKernel.vector(KEY);
+            if (kernel == null) {
+                throw new IllegalStateException("The Vector API is not loaded, run with --add-modules "
+                        + "jdk.incubator.vector on a JDK having it");
+            }
+        }
+        payload = BenchmarkImages.randomBytes(payloadSize);
+    }
+
+    /**
+     * XORs the same payload again on each call, which costs the same as XORing a
+     * fresh one
+     */
+    @Benchmark
+    public byte[] apply() {
+        kernel.apply(payload, 0, payload.length);
+        return payload;
+    }
+}
@@ -1,12 +1,8 @@
 package redes.client;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataOutputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -15,14 +11,12 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
-import org.apache.commons.lang3.ArrayUtils;
 
-import one.util.streamex.StreamEx;
 import redes.lib.Chunk;
 import redes.lib.ChunkType;
 import redes.lib.Encoder;
 import redes.lib.EncodingOptions;
-import redes.lib.Png;
+import redes.lib.PngSplicer;
 
 /**
  * @author Robert Broketa
@@ -85,14 +79,23 @@ public class Client {
             if (line.hasOption("t")) {
                 runImageTest(line);
             }
+            if (line.hasOption("b")) {
+                runBatchTest(line);
+            }
             if (line.hasOption("c")) {
                 var enconding = getEncoding(line.getOptionValue("e")).toString();
                 var imagePath = line.getOptionValue("c");
                 if (!imagePath.endsWith(".png")) {
                     throw new IllegalArgumentException("Not a valid PNG image");
                 }
-                var image = encodePng(line);
-                createNewImage(imagePath, image, enconding);
+                var chunk = createHiddenChunk(line);
+                createNewImage(imagePath, chunk, enconding);
+            }
+            if (line.hasOption("u")) {
+                var imagePath = line.getOptionValue("u");
+                var chunk = createHiddenChunk(line);
+                PngSplicer.update(Paths.get(imagePath), chunk);
+                System.out.println("Hidden message updated");
             }
         } catch (ParseException exp) {
             System.err.println("Parsing failed. Reason: " + exp.getMessage());
@@ -110,7 +113,7 @@ public class Client {
      * @param line {@code CLI} object to extract the {@code CLI} options from
      */
     private static void runImageTest(CommandLine line) {
-        var connector = new ClientConnector();
+        var connector = new ClientConnector(line.hasOption("M"), line.hasOption("d"), line.hasOption("z"));
         String imagePath = line.getOptionValue("t");
         Integer port = null;
         String portStr = line.getOptionValue("p");
@@ -122,15 +125,31 @@ public class Client {
     }
 
     /**
-     * Encodes message in a PNG image
+     * Sends the images to the server over a single connection to be tested for an
+     * existing hidden message
+     * 
+     * @param line {@code CLI} object to extract the {@code CLI} options from
+     */
+    private static void runBatchTest(CommandLine line) {
+        var connector = new ClientConnector(line.hasOption("M"), line.hasOption("d"), line.hasOption("z"));
+        var imagePaths = Arrays.asList(line.getOptionValues("b"));
+        Integer port = null;
+        String portStr = line.getOptionValue("p");
+        if (portStr != null) {
+            port = Integer.parseInt(portStr);
+        }
+        String host = line.getOptionValue("s");
+        connector.testImages(imagePaths, host, port);
+    }
+
+    /**
+     * Encodes the message in a hidden message chunk
      * 
      * @param line {@code CLI} object to extract the {@code CLI} options from
-     * @return The PNG object with the encoded message
-     * @throws IOException              If the image does not exist
+     * @return The chunk containing the encoded message
      * @throws IllegalArgumentException If a message is not provided
      */
-    private static Png encodePng(CommandLine line) throws IOException, IllegalArgumentException {
-        var imagePath = line.getOptionValue("c");
+    private static Chunk createHiddenChunk(CommandLine line) throws IllegalArgumentException {
         EncodingOptions encoding = getEncoding(line.getOptionValue("e"));
         String offsetStr = line.getOptionValue("o");
         Integer offset = null;
@@ -154,10 +173,9 @@ public class Client {
             throw new IllegalArgumentException("Please provide a message to encode on the image");
         }
 
-        var imgBytes = Files.readAllBytes(Paths.get(imagePath));
-        var png = Png.fromBytes(StreamEx.of(ArrayUtils.toObject(imgBytes)).toList());
-        var type = ChunkType.fromString("reDe");
-        var encryptedMessage = Encoder.encode(message, encoding, offset);
+        var type = ChunkType.fromString(ChunkType.HIDDEN_MESSAGE);
+        var messageBytes = message.getBytes();
+        Encoder.encode(messageBytes, 0, messageBytes.length, encoding, offset == null ? 0 : offset);
         /**
          * The encryption method is encoded using the first 3 *bits* of a **byte**, the
          * last 5 bits is used to encode the offset, in case of the CAESAR encryption
@@ -176,40 +194,32 @@ public class Client {
             // the bits beloging to firstByte
             firstByte = (byte) (offset | firstByte);
         }
-        var data = StreamEx.of(firstByte).append(ArrayUtils.toObject(encryptedMessage.getBytes())).toList();
+        var data = new byte[messageBytes.length + 1];
+        data[0] = firstByte;
+        System.arraycopy(messageBytes, 0, data, 1, messageBytes.length);
 
-        var chunk = new Chunk(type, data);
-        png.appendChunk(chunk);
-        return png;
+        return new Chunk(type, data);
     }
 
     /**
-     * Creates a new image with the encoding used appended to its name
+     * Creates a new image with the encoding used appended to its name, splicing
+     * the hidden message chunk right before the {@code IEND} chunk of the
+     * original image
      * 
      * @param originalImagePath Original image path
-     * @param image             PNG object representation of the image
+     * @param chunk             The hidden message chunk
      * @param encoding          Encoding used
      * @throws IOException If the there is an error while writing to the new image
      *                     buffer
      */
-    private static void createNewImage(String originalImagePath, Png image, String encoding) throws IOException {
+    private static void createNewImage(String originalImagePath, Chunk chunk, String encoding) throws IOException {
         var path = Paths.get(originalImagePath);
         var pathStr = path.getParent().toString() + '/';
         var filename = path.getFileName().toString();
         var filenameNoType = filename.substring(0, filename.length() - 4);
         String newFile = pathStr.concat(filenameNoType).concat("_" + encoding + ".png");
-        try (var output = new FileOutputStream(newFile)) {
-            var dos = new DataOutputStream(output);
-
-            final var BUFFER_SIZE = 8192;
-            var buffer = new byte[BUFFER_SIZE];
-            var read = 0;
-            var imgBytes = ArrayUtils.toPrimitive(image.asBytes().toArray(new Byte[0]));
-            InputStream imgStream = new ByteArrayInputStream(imgBytes);
-
-            while ((read = imgStream.read(buffer)) > 0) {
-                dos.write(buffer, 0, read);
-            }
+        try {
+            PngSplicer.splice(path, Paths.get(newFile), chunk);
         } catch (IOException ex) {
             throw new IOException("Error while creating new image");
         }
@@ -242,9 +252,24 @@ public class Client {
         Option testImage = Option.builder("t").hasArg().argName("image-path")
                 .desc("Checks the specified image for a hidden message and prints it").longOpt("test-image")
                 .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option batch = Option.builder("b").hasArgs().argName("image-paths")
+                .desc("Checks the specified images for a hidden message over a single connection and prints them")
+                .longOpt("batch").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option metadataOnly = Option.builder("M")
+                .desc("Scans the images locally and sends only their hidden message chunks when testing them")
+                .longOpt("metadata-only").build();
+        Option digestFirst = Option.builder("d")
+                .desc("Sends the digest of each image first and uploads only the images the server does not know")
+                .longOpt("digest-first").build();
+        Option compress = Option.builder("z")
+                .desc("Compresses the uploads while it makes them smaller, if the server supports it")
+                .longOpt("compress").build();
         Option createImage = Option.builder("c").hasArg().argName("image-path")
                 .desc("Creates a copy of the specified image containing the given message").longOpt("create-image")
                 .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option updateImage = Option.builder("u").hasArg().argName("image-path")
+                .desc("Replaces, in place, the hidden message of the specified image with the given message")
+                .longOpt("update-image").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
         Option message = Option.builder("m").hasArg().argName("message").desc("The message to encrypt")
                 .longOpt("message").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
         Option encryption = Option.builder("e").hasArg().argName("encryption")
@@ -262,7 +287,12 @@ public class Client {
         Option help = Option.builder("h").desc("Prints this message").longOpt("help").build();
 
         options.addOption(testImage);
+        options.addOption(batch);
+        options.addOption(metadataOnly);
+        options.addOption(digestFirst);
+        options.addOption(compress);
         options.addOption(createImage);
+        options.addOption(updateImage);
         options.addOption(message);
         options.addOption(encryption);
         options.addOption(offset);
@@ -1,61 +1,178 @@
 package redes.client;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.ConnectException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
+import redes.lib.BlockCompressor;
+import redes.lib.ChunkType;
+import redes.lib.CrcPolicy;
+import redes.lib.Frame;
+import redes.lib.MappedPng;
+import redes.lib.Protocol;
+import redes.lib.ScanResult;
+
+import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
 /**
  * Class used to interact with the server
  */
 @NoArgsConstructor
+@AllArgsConstructor
 public class ClientConnector {
 
     private static final int DEFAULT_PORT = 6868;
     private static final String DEFAULT_HOST = "localhost";
 
     /**
-     * Retrieves and sends the specified image to the localhost server at the given
-     * port and prints the response until a 'bye' is received
+     * Whether only the signature, the hidden message chunks and {@code IEND} are
+     * sent instead of the whole image
+     */
+    private boolean metadataOnly;
+
+    /**
+     * Whether the digest of each image is offered before its bytes, so images
+     * already known by the server are not uploaded
+     */
+    private boolean digestFirst;
+
+    /**
+     * Whether the uploads are compressed, if the server supports it
+     */
+    private boolean compress;
+
+    /**
+     * Number of bytes handed to the kernel by each transfer, so an early answer is
+     * noticed while a large image is being sent
+     */
+    private static final long TRANSFER_STEP = 1 << 20;
+
+    /**
+     * How long the answer to the hello is waited for, in milliseconds, before
+     * taking the server as one not supporting the negotiation
+     */
+    private static final int HELLO_TIMEOUT = 3000;
+
+    /**
+     * The bytes sent for an image
+     */
+    private static class Upload implements Closeable {
+        final InputStream input;
+        final long length;
+
+        /**
+         * The file the bytes are read from, {@code null} if they are in memory
+         */
+        final FileChannel file;
+
+        Upload(InputStream input, long length) {
+            this(input, length, null);
+        }
+
+        Upload(FileInputStream input, long length) {
+            this(input, length, input.getChannel());
+        }
+
+        private Upload(InputStream input, long length, FileChannel file) {
+            this.input = input;
+            this.length = length;
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    /**
+     * Retrieves and sends the specified image to the server at the given port and
+     * prints the response until a 'bye' is received. The image is only sent in a
+     * session when digests or compression are wanted, which need one
      * 
      * @param imagePath The path to the image which will be sent
+     * @param host      The server host
      * @param port      The port which the server is listening
      */
     public void testImage(String imagePath, String host, Integer port) {
+        if (digestFirst || compress) {
+            testImages(List.of(imagePath), host, port);
+            return;
+        }
         if (port == null) {
             port = DEFAULT_PORT;
         }
         if (host == null) {
             host = DEFAULT_HOST;
         }
-        var file = getFileFromPathString(imagePath);
-        try (var fileStream = new FileInputStream(file); var socket = new Socket(host, port)) {
+        sendAlone(getFileFromPathString(imagePath), host, port);
+    }
+
+    /**
+     * Sends the image over a connection of its own, without negotiating any
+     * feature, and prints the response until a 'bye' is received
+     * <p>
+     * An image read from a file is sent with {@link FileChannel#transferTo}, so
+     * the kernel copies it to the socket without going through the heap
+     * 
+     * @param file The image which will be sent
+     * @param host The server host
+     * @param port The port which the server is listening
+     */
+    private void sendAlone(File file, String host, int port) {
+        try (var upload = openUpload(file); var channel = connect(host, port)) {
+            var socket = channel.socket();
             var output = socket.getOutputStream();
             var dos = new DataOutputStream(output);
             var input = socket.getInputStream();
             var reader = new BufferedReader(new InputStreamReader(input));
+            IOException sendError = null;
 
             var line = reader.readLine();
+            // Waits for a free connection while the server keeps the client queued
+            while (line.startsWith("queued")) {
+                System.out.println(line);
+                line = reader.readLine();
+            }
             if (line.equals("ready")) {
-                final var BUFFER_SIZE = 8192;
-                var buffer = new byte[BUFFER_SIZE];
-                var read = 0;
-
                 // Send file name
                 dos.writeUTF(file.getName());
                 // Send file length
-                dos.writeLong(file.length());
-                // Read file chunk by chunk and add it to the socket output stream
-                while ((read = fileStream.read(buffer)) > 0) {
-                    dos.write(buffer, 0, read);
+                dos.writeLong(upload.length);
+                // Send the file, stopping if the server answers before the whole file is sent
+                try {
+                    sendBody(upload, dos, channel, input);
+                } catch (IOException ex) {
+                    // The server may have answered early and closed the connection,
+                    // which breaks the transfer, so its answer is read before failing
+                    sendError = ex;
                 }
 
                 System.out.println("File read");
@@ -64,12 +181,149 @@ public class ClientConnector {
             } else {
                 System.out.println(line);
             }
-            while (true) {
-                line = reader.readLine();
-                if (line.equals("bye")) {
-                    break;
+            try {
+                while (true) {
+                    line = reader.readLine();
+                    if (line == null) {
+                        throw new EOFException("Connection closed before the bye");
+                    }
+                    if (line.equals("bye")) {
+                        break;
+                    }
+                    System.out.println(line);
                 }
+            } catch (IOException ex) {
+                // No answer arrived, so the failed transfer is what went wrong
+                throw sendError != null ? sendError : ex;
+            }
+        } catch (ConnectException ex) {
+            System.err.println("Could not connect to the server: " + ex.getMessage() + "\nMaybe the port is wrong?");
+        } catch (UnknownHostException ex) {
+            System.err.println("Server not found: " + ex.getMessage());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            System.err.println("I/O error: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Tests many images over a single connection. The images are uploaded back
+     * to back while the results, tagged with the index of their image, are read
+     * and printed as they arrive. Falls back to a connection per image if the
+     * server does not support sessions
+     * <p>
+     * A single image is sent over a connection of its own without negotiating,
+     * unless digests or compression are wanted, as an older server fails on the
+     * negotiation and keeps the connection it took
+     * <p>
+     * When offering digests first, every digest is sent before any image and
+     * only the images the server asks for are uploaded. When compressing, the
+     * images are sent in blocks deflated while it pays off
+     * 
+     * @param imagePaths The paths to the images which will be sent
+     * @param host       The server host
+     * @param port       The port which the server is listening
+     */
+    public void testImages(List<String> imagePaths, String host, Integer port) {
+        if (port == null) {
+            port = DEFAULT_PORT;
+        }
+        if (host == null) {
+            host = DEFAULT_HOST;
+        }
+        List<File> files = new ArrayList<>();
+        for (var imagePath : imagePaths) {
+            files.add(getFileFromPathString(imagePath));
+        }
+        if (files.size() == 1 && !digestFirst && !compress) {
+            sendAlone(files.get(0), host, port);
+            return;
+        }
+        try (var channel = connect(host, port)) {
+            var socket = channel.socket();
+            var dos = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            // Text lines and frames share the stream, so lines are read without a reader
+            var dis = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            var line = readLine(dis);
+            while (line.startsWith("queued")) {
                 System.out.println(line);
+                line = readLine(dis);
+            }
+            if (!line.equals("ready")) {
+                printUntilBye(dis, line);
+                return;
+            }
+
+            // Asks for a session. An older server takes it as an empty file and
+            // either rejects it or fails without answering, so the answer is
+            // only waited for a while
+            var wanted = new ArrayList<>(List.of(Protocol.SESSION, Protocol.FRAMES));
+            if (digestFirst) {
+                wanted.add(Protocol.DIGEST);
+            }
+            if (compress) {
+                wanted.add(Protocol.DEFLATE);
+            }
+            dos.writeUTF(Protocol.hello(wanted.toArray(new String[0])));
+            dos.writeLong(0);
+            dos.flush();
+            var features = readHelloReply(socket, dis);
+            if (!features.contains(Protocol.SESSION)) {
+                socket.close();
+                System.out.println("Server does not support sessions, sending one image per connection");
+                for (var file : files) {
+                    sendAlone(file, host, port);
+                }
+                return;
+            }
+
+            if (digestFirst && !features.contains(Protocol.DIGEST)) {
+                System.out.println("Server does not accept digests, uploading every image");
+            }
+            if (compress && !features.contains(Protocol.DEFLATE)) {
+                System.out.println("Server does not accept compression, uploading images as they are");
+            }
+            var compressor = features.contains(Protocol.DEFLATE) ? new BlockCompressor() : null;
+            // Ids of the offered images the server asked for, ended by END_OF_SESSION
+            BlockingQueue<Integer> needed = features.contains(Protocol.DIGEST) ? new LinkedBlockingQueue<>() : null;
+
+            // Uploads every image without waiting for the results
+            var sender = new Thread(() -> {
+                try {
+                    sendImages(dos, channel, files, needed, compressor);
+                } catch (IOException ex) {
+                    System.err.println("I/O error while sending images: " + ex.getMessage());
+                    // Stops the reader waiting for results that will never come
+                    try {
+                        socket.close();
+                    } catch (IOException closeEx) {
+                        // Already closed
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            sender.start();
+
+            try {
+                if (features.contains(Protocol.FRAMES)) {
+                    readResultFrames(dis, files, needed);
+                } else {
+                    readResultLines(dis, files, needed);
+                }
+            } finally {
+                // Every result arrived, so the server will not ask for more images
+                if (needed != null) {
+                    needed.add(Protocol.END_OF_SESSION);
+                }
+            }
+            sender.join();
+            if (compressor != null) {
+                compressor.close();
+                System.out.println(String.format("Compression: sent %d of %d bytes (%.1f%%)%s",
+                        compressor.getSentBytes(), compressor.getInputBytes(), compressor.getRatio() * 100,
+                        compressor.isEnabled() ? "" : ", turned off as the images do not compress"));
             }
         } catch (ConnectException ex) {
             System.err.println("Could not connect to the server: " + ex.getMessage() + "\nMaybe the port is wrong?");
@@ -78,7 +332,336 @@ public class ClientConnector {
         } catch (IOException ex) {
             ex.printStackTrace();
             System.err.println("I/O error: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the answer to the hello. An older server either answers it as an
+     * invalid empty image or fails on it without answering nor closing the
+     * connection, so the answer is waited for at most {@link #HELLO_TIMEOUT}
+     * 
+     * @param socket The connection
+     * @param dis    The socket input
+     * @return The features accepted by the server, empty if it does not support
+     *         the negotiation
+     * @throws IOException If the answer could not be read
+     */
+    private static Set<String> readHelloReply(Socket socket, DataInputStream dis) throws IOException {
+        socket.setSoTimeout(HELLO_TIMEOUT);
+        try {
+            var line = readLine(dis);
+            if (line != null && line.startsWith(Protocol.HELLO_REPLY)) {
+                return Protocol.features(line);
+            }
+        } catch (SocketTimeoutException ex) {
+            // An older server stuck on the empty file
+        } finally {
+            if (!socket.isClosed()) {
+                socket.setSoTimeout(0);
+            }
+        }
+        return Set.of();
+    }
+
+    /**
+     * Prints the session results sent as frames until the server ends the
+     * session
+     * 
+     * @param dis    The socket input
+     * @param files  The images sent, indexed by request id
+     * @param needed Receives the ids of the offered images the server asks for,
+     *               {@code null} if no digest is offered
+     */
+    private static void readResultFrames(DataInputStream dis, List<File> files, BlockingQueue<Integer> needed)
+            throws IOException {
+        var received = 0;
+        while (received < files.size()) {
+            var frame = Frame.read(dis);
+            if (frame.getType() == Frame.BYE) {
+                break;
+            }
+            if (frame.getType() == Frame.NEED && needed != null) {
+                needed.add(frame.getPayload().getInt(0));
+                continue;
+            }
+            if (frame.getType() != Frame.RESULT) {
+                continue;
+            }
+            var result = ScanResult.fromFrame(frame);
+            var name = files.get(result.getRequestId()).getName();
+            var timing = String.format(" (received in %.1f ms, scanned in %.1f ms)",
+                    result.getReceiveMicros() / 1000.0, result.getScanMicros() / 1000.0);
+            switch (result.getStatus()) {
+                case HIDDEN:
+                    System.out.println(name + ": There's a hidden message: " + result.dataAsString() + timing);
+                    break;
+                case NONE:
+                    System.out.println(name + ": There's no hidden message" + timing);
+                    break;
+                default:
+                    System.out.println(name + ": Invalid image: " + result.dataAsString() + timing);
+                    break;
+            }
+            received++;
+        }
+    }
+
+    /**
+     * Prints the session results sent as text lines until the server ends the
+     * session
+     * 
+     * @param dis    The socket input
+     * @param files  The images sent, indexed by request id
+     * @param needed Receives the ids of the offered images the server asks for,
+     *               {@code null} if no digest is offered
+     */
+    private static void readResultLines(DataInputStream dis, List<File> files, BlockingQueue<Integer> needed)
+            throws IOException {
+        var received = 0;
+        String line;
+        while (received < files.size() && (line = readLine(dis)) != null && !line.equals("bye")) {
+            // result <id> <hidden|none|invalid> [detail]
+            var fields = line.split(" ", 4);
+            if (fields.length == 2 && fields[0].equals(Protocol.NEED) && needed != null) {
+                needed.add(Integer.parseInt(fields[1]));
+                continue;
+            }
+            if (fields.length < 3 || !fields[0].equals(Protocol.RESULT)) {
+                System.out.println(line);
+                continue;
+            }
+            var name = files.get(Integer.parseInt(fields[1])).getName();
+            var detail = fields.length > 3 ? fields[3] : "";
+            switch (fields[2]) {
+                case "hidden":
+                    System.out.println(name + ": There's a hidden message: " + detail);
+                    break;
+                case "none":
+                    System.out.println(name + ": There's no hidden message");
+                    break;
+                default:
+                    System.out.println(name + ": Invalid image: " + detail);
+                    break;
+            }
+            received++;
+        }
+    }
+
+    /**
+     * Sends every image as a session request tagged with its index, then ends
+     * the session. When offering digests, every digest is offered first and then
+     * the images the server asks for are uploaded as it asks for them
+     * 
+     * @param dos        The socket output
+     * @param channel    The socket the images are transferred to
+     * @param files      The images to be sent
+     * @param needed     The ids of the offered images the server asks for, ended
+     *                   by {@link Protocol#END_OF_SESSION}, {@code null} to
+     *                   upload every image without offering its digest
+     * @param compressor Writes the images in blocks, {@code null} to send them
+     *                   as they are
+     */
+    private void sendImages(DataOutputStream dos, SocketChannel channel, List<File> files,
+            BlockingQueue<Integer> needed, BlockCompressor compressor) throws IOException, InterruptedException {
+        if (needed == null) {
+            for (var i = 0; i < files.size(); i++) {
+                sendImage(dos, channel, i, files.get(i), false, compressor);
+            }
+        } else {
+            for (var i = 0; i < files.size(); i++) {
+                var file = files.get(i);
+                try (var upload = openUpload(file)) {
+                    dos.writeInt(i);
+                    dos.writeByte(Protocol.OFFER);
+                    dos.writeUTF(file.getName());
+                    dos.writeLong(upload.length);
+                    dos.write(digestOf(upload));
+                }
+            }
+            dos.flush();
+            int requestId;
+            while ((requestId = needed.take()) != Protocol.END_OF_SESSION) {
+                sendImage(dos, channel, requestId, files.get(requestId), true, compressor);
+                dos.flush();
+            }
+        }
+        dos.writeInt(Protocol.END_OF_SESSION);
+        dos.flush();
+    }
+
+    /**
+     * Sends an image as a session request
+     * 
+     * @param dos        The socket output
+     * @param channel    The socket the image is transferred to
+     * @param requestId  The id tagging the request
+     * @param file       The image
+     * @param withKind   Whether the request starts with its kind, as when
+     *                   digests are offered
+     * @param compressor Writes the image in blocks, {@code null} to send it as it
+     *                   is
+     */
+    private void sendImage(DataOutputStream dos, SocketChannel channel, int requestId, File file,
+            boolean withKind, BlockCompressor compressor) throws IOException {
+        try (var upload = openUpload(file)) {
+            dos.writeInt(requestId);
+            if (withKind) {
+                dos.writeByte(Protocol.UPLOAD);
+            }
+            dos.writeUTF(file.getName());
+            dos.writeLong(upload.length);
+            if (compressor == null) {
+                sendBody(upload, dos, channel, null);
+                return;
+            }
+            var buffer = new byte[Protocol.BLOCK_SIZE];
+            var read = 0;
+            while ((read = upload.input.readNBytes(buffer, 0, buffer.length)) > 0) {
+                compressor.write(dos, buffer, read);
+            }
+        }
+    }
+
+    /**
+     * Sends the bytes of an image after its header. The bytes of a file are
+     * transferred to the socket by the kernel, the ones in memory are copied
+     * through a buffer
+     * 
+     * @param upload  The bytes sent for the image
+     * @param dos     The socket output, flushed before any transfer
+     * @param channel The socket the file is transferred to
+     * @param input   The socket input, checked between writes to stop once the
+     *                server answers, {@code null} to always send the whole image
+     * @throws IOException If the image could not be read or sent
+     */
+    private static void sendBody(Upload upload, DataOutputStream dos, SocketChannel channel, InputStream input)
+            throws IOException {
+        if (upload.file != null) {
+            // The header may still be waiting in the stream buffer
+            dos.flush();
+            var position = 0L;
+            while (position < upload.length && (input == null || input.available() == 0)) {
+                var sent = upload.file.transferTo(position, Math.min(TRANSFER_STEP, upload.length - position), channel);
+                if (sent == 0) {
+                    throw new EOFException("File shrank while being sent");
+                }
+                position += sent;
+            }
+            return;
+        }
+
+        final var BUFFER_SIZE = 8192;
+        var buffer = new byte[BUFFER_SIZE];
+        var read = 0;
+        while ((read = upload.input.read(buffer)) > 0 && (input == null || input.available() == 0)) {
+            dos.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Opens a blocking connection to the server
+     * 
+     * @param host The server host
+     * @param port The port which the server is listening
+     * @return The connected channel
+     * @throws UnknownHostException If the host could not be resolved
+     * @throws IOException          If the connection failed
+     */
+    private static SocketChannel connect(String host, int port) throws IOException {
+        var address = new InetSocketAddress(host, port);
+        if (address.isUnresolved()) {
+            throw new UnknownHostException(host);
+        }
+        return SocketChannel.open(address);
+    }
+
+    /**
+     * Computes the digest of the bytes uploaded for an image, which is what the
+     * server caches its results by. The upload is read to its end
+     * 
+     * @param upload The bytes sent for the image
+     * @return The digest
+     * @throws IOException If the image could not be read
+     */
+    private static byte[] digestOf(Upload upload) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(Protocol.DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(ex);
+        }
+        final var BUFFER_SIZE = 8192;
+        var buffer = new byte[BUFFER_SIZE];
+        var read = 0;
+        while ((read = upload.input.read(buffer)) > 0) {
+            digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Prints the server messages until a 'bye' is received
+     * 
+     * @param dis   The socket input
+     * @param first A message already read, {@code null} if there is none
+     */
+    private static void printUntilBye(DataInputStream dis, String first) throws IOException {
+        var line = first;
+        while (line == null || !line.equals("bye")) {
+            if (line != null) {
+                System.out.println(line);
+            }
+            line = readLine(dis);
+            if (line == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads a text line sent by the server
+     * 
+     * @param dis The socket input
+     * @return The line without its terminator, or {@code null} at the end of the
+     *         stream
+     */
+    private static String readLine(DataInputStream dis) throws IOException {
+        var line = new ByteArrayOutputStream();
+        int value;
+        while ((value = dis.read()) != '\n') {
+            if (value < 0) {
+                return line.size() > 0 ? line.toString() : null;
+            }
+            line.write(value);
+        }
+        var text = line.toString();
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+
+    /**
+     * Opens the bytes to be sent for the given image. In metadata only mode the
+     * image is scanned locally and only its signature, hidden message chunks and
+     * {@code IEND} are sent. Images that cannot be scanned are sent whole, so the
+     * server reports what is wrong with them
+     * 
+     * @param file The image
+     * @return The bytes to be sent and their length
+     * @throws IOException If the image could not be read
+     */
+    private Upload openUpload(File file) throws IOException {
+        if (metadataOnly) {
+            try {
+                var stripped = MappedPng.open(file.toPath(), CrcPolicy.NONE)
+                        .strip(type -> type.is(ChunkType.HIDDEN_MESSAGE)).asByteArray();
+                return new Upload(new ByteArrayInputStream(stripped), stripped.length);
+            } catch (IllegalArgumentException ex) {
+                // Sends the whole image instead
+            }
         }
+        return new Upload(new FileInputStream(file), file.length());
     }
 
     /**
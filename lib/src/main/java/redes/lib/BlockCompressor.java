@@ -0,0 +1,129 @@
+package redes.lib;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+import lombok.Getter;
+
+/**
+ * Writes upload bytes as the blocks sent once {@link Protocol#DEFLATE} is
+ * negotiated: a kind byte, the block length as an integer and the block
+ * <p>
+ * Every block is deflated on its own and sent deflated only if that makes it
+ * smaller. Image data is usually compressed already, so once enough bytes were
+ * tried and deflating them saved too little, the compressor stops trying and
+ * every following block is sent raw without spending any more CPU on it. A
+ * compressor is meant to live as long as its connection
+ */
+public class BlockCompressor implements Closeable {
+
+    /**
+     * Compressed to original size ratio above which compressing is not worth it
+     */
+    public static final double POOR_RATIO = 0.9;
+
+    /**
+     * Number of bytes tried before the ratio is trusted
+     */
+    public static final long SAMPLE_SIZE = 4L * Protocol.BLOCK_SIZE;
+
+    private final Deflater deflater = new Deflater();
+
+    /**
+     * Buffer receiving a deflated block
+     */
+    private final byte[] output = new byte[Protocol.BLOCK_SIZE];
+
+    /**
+     * Whether blocks are still tried to be deflated
+     */
+    @Getter
+    private boolean enabled = true;
+
+    /**
+     * Number of upload bytes given to the deflater
+     */
+    private long tried;
+
+    /**
+     * Number of bytes sent for the upload bytes given to the deflater
+     */
+    private long triedSent;
+
+    /**
+     * Number of upload bytes written
+     */
+    @Getter
+    private long inputBytes;
+
+    /**
+     * Number of bytes sent for them, block headers included
+     */
+    @Getter
+    private long sentBytes;
+
+    /**
+     * Writes the given upload bytes as a single block
+     *
+     * @param out    The stream to write to
+     * @param block  The upload bytes
+     * @param length The number of upload bytes, at most
+     *               {@link Protocol#BLOCK_SIZE}
+     * @throws IOException If the block could not be written
+     */
+    public void write(DataOutputStream out, byte[] block, int length) throws IOException {
+        if (length < 0 || length > Protocol.BLOCK_SIZE) {
+            throw new IllegalArgumentException("Invalid block length");
+        }
+        var deflated = this.enabled ? this.deflate(block, length) : -1;
+        if (deflated >= 0) {
+            out.writeByte(Protocol.BLOCK_DEFLATED);
+            out.writeInt(deflated);
+            out.write(this.output, 0, deflated);
+        } else {
+            out.writeByte(Protocol.BLOCK_RAW);
+            out.writeInt(length);
+            out.write(block, 0, length);
+        }
+        this.inputBytes += length;
+        this.sentBytes += Protocol.BLOCK_HEADER_LENGTH + (deflated >= 0 ? deflated : length);
+    }
+
+    /**
+     * Returns the size sent for every byte written so far
+     *
+     * @return The ratio of the bytes sent to the upload bytes, 1 if nothing was
+     *         written
+     */
+    public double getRatio() {
+        return this.inputBytes > 0 ? (double) this.sentBytes / this.inputBytes : 1;
+    }
+
+    @Override
+    public void close() {
+        this.deflater.end();
+    }
+
+    /**
+     * Deflates a block into the output buffer and updates the measured ratio
+     *
+     * @return The deflated length, or -1 if deflating does not make the block
+     *         smaller
+     */
+    private int deflate(byte[] block, int length) {
+        this.deflater.reset();
+        this.deflater.setInput(block, 0, length);
+        this.deflater.finish();
+        var size = this.deflater.deflate(this.output);
+        var smaller = this.deflater.finished() && size < length;
+
+        this.tried += length;
+        this.triedSent += smaller ? size : length;
+        if (this.tried >= SAMPLE_SIZE && this.triedSent > this.tried * POOR_RATIO) {
+            this.enabled = false;
+        }
+        return smaller ? size : -1;
+    }
+}
@@ -1,25 +1,32 @@
 package redes.lib;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.CRC32;
 
-import org.apache.commons.lang3.ArrayUtils;
+import com.google.common.primitives.Bytes;
 
-import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import one.util.streamex.StreamEx;
 
 /**
  * A PNG image chunk representation
+ * <p>
+ * The chunk data is a view over the buffer the chunk was parsed from, so parsing
+ * a whole image does not copy any of its data
  */
-@AllArgsConstructor
 @EqualsAndHashCode
 public class Chunk {
     private static final String INVALID_CHUNK = "Invalid chunk";
 
+    /**
+     * Number of bytes used by the length, chunk type and CRC fields
+     */
+    public static final int OVERHEAD = 12;
+
     /**
      * Length of the chunk
      */
@@ -35,8 +42,7 @@ public class Chunk {
     /**
      * The chunk data
      */
-    @Getter
-    private List<Byte> data;
+    private ByteBuffer data;
 
     /**
      * The {@link CRC32} of the chunk
@@ -44,71 +50,257 @@ public class Chunk {
     @Getter
     private Integer crc;
 
+    /**
+     * Whether the {@link CRC32} still has to be checked on the first access to the
+     * data
+     */
+    @EqualsAndHashCode.Exclude
+    private volatile boolean unchecked;
+
     /**
      * Creates a new Chunk object
      */
     public Chunk(ChunkType chunkType, List<Byte> data) {
-        List<Byte> type = chunkType.getChunk();
-        var list = StreamEx.of(type.stream()).append(data.stream()).toList();
-        var bytes = ArrayUtils.toPrimitive(list.toArray(new Byte[0]));
-        var crcGen = new CRC32();
-        crcGen.update(bytes);
+        this(chunkType, Bytes.toArray(data));
+    }
+
+    /**
+     * Creates a new Chunk object backed by the given array
+     */
+    public Chunk(ChunkType chunkType, byte[] data) {
+        this(chunkType, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Creates a new Chunk object backed by the remaining bytes of the given buffer
+     */
+    public Chunk(ChunkType chunkType, ByteBuffer data) {
+        this.data = data.slice();
+        this.length = this.data.limit();
+        this.chunkType = chunkType;
+        this.crc = Chunk.crcOf(chunkType, this.data);
+    }
 
-        this.length = data.size();
+    private Chunk(Integer length, ChunkType chunkType, ByteBuffer data, Integer crc) {
+        this.length = length;
         this.chunkType = chunkType;
         this.data = data;
-        this.crc = (int) crcGen.getValue();
+        this.crc = crc;
     }
 
     /**
      * Creates a {@code Chunk} from a list of bytes
-     * 
+     *
      * @param chunk Byte list
      * @return A valid chunk
      * @throws InvalidParameterException If a chunk is not valid
      */
     public static Chunk fromBytes(List<Byte> chunk) throws InvalidParameterException {
-        Integer offset = 0;
-        Integer length = ChunkHelper.fromBytesToInt(new ArrayList<>(chunk.subList(0, 4)));
+        return fromBytes(Bytes.toArray(chunk));
+    }
+
+    /**
+     * Creates a {@code Chunk} from an array of bytes, without copying its data
+     *
+     * @param chunk Byte array
+     * @return A valid chunk
+     * @throws InvalidParameterException If a chunk is not valid
+     */
+    public static Chunk fromBytes(byte[] chunk) throws InvalidParameterException {
+        return fromBuffer(ByteBuffer.wrap(chunk));
+    }
+
+    /**
+     * Creates a {@code Chunk} from the bytes starting at the buffer position,
+     * without copying its data. On success the buffer position is moved past the
+     * chunk
+     *
+     * @param buffer The buffer containing the chunk
+     * @return A valid chunk
+     * @throws InvalidParameterException If a chunk is not valid
+     */
+    public static Chunk fromBuffer(ByteBuffer buffer) throws InvalidParameterException {
+        return fromBuffer(buffer, CrcPolicy.STRICT);
+    }
+
+    /**
+     * Creates a {@code Chunk} from the bytes starting at the buffer position,
+     * without copying its data, checking its {@link CRC32} as the policy says. On
+     * success the buffer position is moved past the chunk
+     *
+     * @param buffer The buffer containing the chunk
+     * @param policy When the {@link CRC32} is checked
+     * @return A valid chunk
+     * @throws InvalidParameterException If a chunk is not valid
+     */
+    public static Chunk fromBuffer(ByteBuffer buffer, CrcPolicy policy) throws InvalidParameterException {
+        var offset = buffer.position();
+        if (buffer.remaining() < OVERHEAD) {
+            throw new InvalidParameterException(Chunk.INVALID_CHUNK);
+        }
+
+        int length = ChunkHelper.readInt(buffer, offset);
+        if (length < 0 || length > buffer.remaining() - OVERHEAD) {
+            throw new InvalidParameterException(Chunk.INVALID_CHUNK);
+        }
         offset += 4;
 
-        var type = new ArrayList<>(chunk.subList(offset, offset + 4));
-        var chunkType = ChunkType.fromBytes(type);
+        var chunkType = ChunkType.fromBuffer(buffer, offset);
+        int valueCrc = ChunkHelper.readInt(buffer, offset + 4 + length);
+        if (policy.checksOnParse(chunkType)) {
+            var crcGen = new CRC32();
+            crcGen.update(ChunkHelper.slice(buffer, offset, length + 4));
+            if ((int) crcGen.getValue() != valueCrc) {
+                throw new InvalidParameterException(Chunk.INVALID_CHUNK);
+            }
+        }
         offset += 4;
 
-        var data = new ArrayList<>(chunk.subList(offset, offset + length));
-        offset += length;
+        var data = ChunkHelper.slice(buffer, offset, length);
+        offset += length + 4;
 
-        int valueCrc = ChunkHelper.fromBytesToInt(new ArrayList<>(chunk.subList(offset, offset + 4)));
+        buffer.position(offset);
+        return Chunk.parsed(chunkType, data, valueCrc, policy.checksOnAccess());
+    }
+
+    /**
+     * Creates a {@code Chunk} whose {@link CRC32} was read by a parser
+     *
+     * @param chunkType The type of the chunk
+     * @param data      The chunk data
+     * @param crc       The {@link CRC32} read with the chunk
+     * @param unchecked Whether the {@link CRC32} must be checked on the first
+     *                  access to the data
+     * @return The chunk
+     */
+    static Chunk parsed(ChunkType chunkType, ByteBuffer data, int crc, boolean unchecked) {
+        var chunk = new Chunk(data.remaining(), chunkType, data.slice(), crc);
+        chunk.unchecked = unchecked;
+        return chunk;
+    }
 
-        var byteList = StreamEx.of(type).append(data).toArray(Byte.class);
-        var bytes = ArrayUtils.toPrimitive(byteList);
+    /**
+     * Calculates the {@link CRC32} of a chunk type followed by its data
+     *
+     * @param chunkType The chunk type
+     * @param data      The chunk data, its position is left untouched
+     * @return The {@link CRC32} value
+     */
+    static int crcOf(ChunkType chunkType, ByteBuffer data) {
         var crcGen = new CRC32();
-        crcGen.update(bytes);
-        int crc = (int) crcGen.getValue();
+        crcGen.update(chunkType.asByteArray());
+        crcGen.update(data.duplicate());
+        return (int) crcGen.getValue();
+    }
 
-        if (crc == valueCrc) {
-            return new Chunk(length, chunkType, data, crc);
-        } else {
-            throw new InvalidParameterException(Chunk.INVALID_CHUNK);
+    /**
+     * Returns the chunk data as a read-only list of bytes. Kept for compatibility,
+     * prefer {@link #getDataBuffer()}
+     *
+     * @return The chunk data
+     */
+    public List<Byte> getData() {
+        this.check();
+        return ChunkHelper.asList(this.data);
+    }
+
+    /**
+     * Returns a read-only view of the chunk data
+     *
+     * @return The chunk data
+     */
+    public ByteBuffer getDataBuffer() {
+        this.check();
+        return this.data.asReadOnlyBuffer();
+    }
+
+    /**
+     * Checks the {@link CRC32} of the chunk if it was parsed with
+     * {@link CrcPolicy#LAZY} and was not checked yet
+     *
+     * @throws InvalidParameterException If the chunk is not valid
+     */
+    public void check() throws InvalidParameterException {
+        if (this.unchecked) {
+            if (Chunk.crcOf(this.chunkType, this.data) != this.crc) {
+                throw new InvalidParameterException(Chunk.INVALID_CHUNK);
+            }
+            this.unchecked = false;
         }
     }
 
+    /**
+     * Returns the number of bytes this chunk takes, including length, chunk type
+     * and CRC
+     *
+     * @return The total size of the chunk
+     */
+    public int totalLength() {
+        return this.length + OVERHEAD;
+    }
+
+    /**
+     * Writes the chunk representation to the given buffer, starting at its
+     * position
+     *
+     * @param buffer The buffer to write to
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.length);
+        buffer.put(this.chunkType.asByteArray());
+        buffer.put(this.data.duplicate());
+        buffer.putInt(this.crc);
+    }
+
+    /**
+     * Writes the chunk representation to the given channel. The chunk data is
+     * written straight from its buffer, without being copied
+     *
+     * @param channel The channel to write to
+     * @throws IOException If the chunk could not be written
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        var header = ByteBuffer.allocate(8);
+        header.putInt(this.length);
+        header.put(this.chunkType.asByteArray());
+        header.flip();
+        var crcBytes = ByteBuffer.allocate(4);
+        crcBytes.putInt(this.crc);
+        crcBytes.flip();
+
+        for (var buffer : new ByteBuffer[] { header, this.data.duplicate(), crcBytes }) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Returns a representation of the chunk as an array of bytes
+     *
+     * @return The chunk representation as an array of bytes
+     */
+    public byte[] asByteArray() {
+        var buffer = ByteBuffer.allocate(this.totalLength());
+        this.writeTo(buffer);
+        return buffer.array();
+    }
+
     /**
      * Returns a representation of the chunk as a list of bytes
-     * 
+     *
      * @return The chunk representation as a list of bytes
      */
     public List<Byte> asBytes() {
-        return StreamEx.of(ChunkHelper.fromIntToBytes(this.length)).append(this.chunkType.asBytes()).append(this.data)
-                .append(ChunkHelper.fromIntToBytes(this.crc)).toList();
+        return Bytes.asList(this.asByteArray());
     }
 
     public String toString() {
-        var builder = new StringBuilder("");
+        this.check();
+        var builder = new StringBuilder(this.length);
 
-        for (var ch : this.data) {
-            builder.append((char) ch.byteValue());
+        for (var i = 0; i < this.length; i++) {
+            builder.append((char) this.data.get(i));
         }
 
         return builder.toString();
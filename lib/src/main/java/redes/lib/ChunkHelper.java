@@ -2,10 +2,10 @@ package redes.lib;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
-
-import org.apache.commons.lang3.ArrayUtils;
+import java.util.RandomAccess;
 
 /**
  * Helper class to use when dealing with a png, chunk or chunk type object
@@ -17,23 +17,33 @@ public class ChunkHelper {
     /**
      * Converts a 4 {@code byte} list, in {@code big endian} order, to a 32-bit
      * integer
-     * 
+     *
      * @param bytes 4 {@code byte} list to be converted
      * @return The {@code big endian} integer representation of the {@code byte}
      *         list
      */
     public static Integer fromBytesToInt(List<Byte> bytes) {
-        var temp = bytes.toArray(new Byte[0]);
-        var buffer = ByteBuffer.wrap(ArrayUtils.toPrimitive(temp));
-        buffer.order(ByteOrder.BIG_ENDIAN);
+        return ((bytes.get(0) & 0xFF) << 24) | ((bytes.get(1) & 0xFF) << 16) | ((bytes.get(2) & 0xFF) << 8)
+                | (bytes.get(3) & 0xFF);
+    }
 
-        return buffer.getInt();
+    /**
+     * Reads a 32-bit integer, in {@code big endian} order, at the given absolute
+     * index of the buffer. The buffer position and byte order are left untouched
+     *
+     * @param buffer The buffer to read from
+     * @param index  The index of the first {@code byte} of the integer
+     * @return The {@code big endian} integer stored at the given index
+     */
+    public static int readInt(ByteBuffer buffer, int index) {
+        return ((buffer.get(index) & 0xFF) << 24) | ((buffer.get(index + 1) & 0xFF) << 16)
+                | ((buffer.get(index + 2) & 0xFF) << 8) | (buffer.get(index + 3) & 0xFF);
     }
 
     /**
      * Converts a 32-bit integer to a 4 {@code byte} list, in {@code big endian}
      * order
-     * 
+     *
      * @param value Integer to be converted
      * @return The 4 {@code byte} list representation of the integer
      */
@@ -50,4 +60,52 @@ public class ChunkHelper {
 
         return list;
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates a view of {@code length} bytes of the buffer, starting at the given
+     * absolute index. No data is copied and the buffer position is left untouched
+     *
+     * @param buffer The buffer to create the view from
+     * @param index  The index of the first {@code byte} of the view
+     * @param length The number of bytes of the view
+     * @return A buffer sharing its content with the given buffer
+     */
+    public static ByteBuffer slice(ByteBuffer buffer, int index, int length) {
+        var view = buffer.duplicate();
+        view.limit(index + length);
+        view.position(index);
+        return view.slice();
+    }
+
+    /**
+     * Creates a read-only {@code List<Byte>} view over the remaining bytes of the
+     * buffer. Each element is boxed on access, nothing is copied up front
+     *
+     * @param buffer The buffer backing the list
+     * @return The {@code List<Byte>} view
+     */
+    public static List<Byte> asList(ByteBuffer buffer) {
+        return new ByteBufferList(buffer.slice());
+    }
+
+    /**
+     * Read-only {@code List<Byte>} backed by a {@link ByteBuffer}
+     */
+    private static class ByteBufferList extends AbstractList<Byte> implements RandomAccess {
+        private final ByteBuffer buffer;
+
+        private ByteBufferList(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public Byte get(int index) {
+            return this.buffer.get(index);
+        }
+
+        @Override
+        public int size() {
+            return this.buffer.limit();
+        }
+    }
+}
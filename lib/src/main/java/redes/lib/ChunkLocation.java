@@ -0,0 +1,103 @@
+package redes.lib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.InvalidParameterException;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Where a chunk is found inside a PNG, read from the chunk header only
+ */
+@AllArgsConstructor
+@EqualsAndHashCode
+public class ChunkLocation {
+    private static final String INVALID_CHUNK = "Invalid chunk";
+
+    /**
+     * Offset of the first byte of the chunk (its length field) in the PNG
+     */
+    @Getter
+    private long offset;
+
+    /**
+     * Length of the chunk data
+     */
+    @Getter
+    private int length;
+
+    /**
+     * The type of the chunk
+     */
+    @Getter
+    private ChunkType chunkType;
+
+    /**
+     * Reads the location of the chunk starting at the given index of the buffer,
+     * checking that the whole chunk fits in it. Only the chunk header is read
+     *
+     * @param buffer The buffer containing the chunk
+     * @param index  The index of the first byte of the chunk
+     * @return The chunk location
+     * @throws InvalidParameterException If the chunk header is not valid or the
+     *                                   chunk does not fit in the buffer
+     */
+    public static ChunkLocation fromBuffer(ByteBuffer buffer, int index) throws InvalidParameterException {
+        if (buffer.limit() - index < Chunk.OVERHEAD) {
+            throw new InvalidParameterException(ChunkLocation.INVALID_CHUNK);
+        }
+        int length = ChunkHelper.readInt(buffer, index);
+        if (length < 0 || length > buffer.limit() - index - Chunk.OVERHEAD) {
+            throw new InvalidParameterException(ChunkLocation.INVALID_CHUNK);
+        }
+        var chunkType = ChunkType.fromBuffer(buffer, index + 4);
+        return new ChunkLocation(index, length, chunkType);
+    }
+
+    /**
+     * Reads the location of the chunk starting at the given offset of the file,
+     * checking that the whole chunk fits in it. Only the chunk header is read
+     *
+     * @param channel The file containing the chunk
+     * @param offset  The offset of the first byte of the chunk
+     * @return The chunk location
+     * @throws IOException               If the header could not be read
+     * @throws InvalidParameterException If the chunk header is not valid or the
+     *                                   chunk does not fit in the file
+     */
+    public static ChunkLocation fromChannel(FileChannel channel, long offset) throws IOException {
+        var header = ByteBuffer.allocate(8);
+        while (header.hasRemaining()) {
+            if (channel.read(header, offset + header.position()) < 0) {
+                throw new InvalidParameterException(ChunkLocation.INVALID_CHUNK);
+            }
+        }
+        int length = ChunkHelper.readInt(header, 0);
+        if (length < 0 || offset + length + Chunk.OVERHEAD > channel.size()) {
+            throw new InvalidParameterException(ChunkLocation.INVALID_CHUNK);
+        }
+        var chunkType = ChunkType.fromBuffer(header, 4);
+        return new ChunkLocation(offset, length, chunkType);
+    }
+
+    /**
+     * Returns the offset of the chunk data in the PNG
+     *
+     * @return The data offset
+     */
+    public long dataOffset() {
+        return this.offset + 8;
+    }
+
+    /**
+     * Returns the offset of the first byte after the chunk
+     *
+     * @return The end offset
+     */
+    public long endOffset() {
+        return this.offset + this.length + Chunk.OVERHEAD;
+    }
+}
@@ -1,12 +1,12 @@
 package redes.lib;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidParameterException;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
+import com.google.common.primitives.Bytes;
+
 import lombok.EqualsAndHashCode;
-import lombok.Getter;
 
 /**
  * The type of a chunk
@@ -22,16 +22,20 @@ public class ChunkType {
      */
     private static final String INVALID_SIZE = "Invalid chunk type size";
 
+    /**
+     * The type of the private chunk holding a hidden message
+     */
+    public static final String HIDDEN_MESSAGE = "reDe";
+
     /**
      * The chunk type data(4 {@code bytes})
      */
-    @Getter
-    private List<Byte> chunk = new ArrayList<>(Arrays.asList(new Byte[4]));
+    private byte[] chunk;
 
     /**
      * Creates a new ChunkType object
      */
-    private ChunkType(List<Byte> chunk) {
+    private ChunkType(byte[] chunk) {
         this.chunk = chunk;
     }
 
@@ -59,31 +63,39 @@ public class ChunkType {
      */
     public static ChunkType fromBytes(List<Byte> chunk) throws InvalidParameterException {
         if (chunk.size() == 4) {
-            if (chunk.stream().allMatch(ChunkType::isAsciiAlphabetic) && ChunkType.isConforming(chunk)) {
-                return new ChunkType(chunk);
-            } else {
-                throw new InvalidParameterException(ChunkType.INVALID_TYPE);
-            }
+            return fromByteArray(Bytes.toArray(chunk));
         } else {
             throw new InvalidParameterException(ChunkType.INVALID_SIZE);
         }
     }
 
     /**
-     * Creates a {@link ChunkType} from a array of {@code bytes}
+     * Creates a {@link ChunkType} from the 4 {@code bytes} found at the given
+     * absolute index of the buffer
      * 
-     * @param chunk The chunk type as a array of {@code bytes}
+     * @param buffer The buffer containing the chunk type
+     * @param index  The index of the first {@code byte} of the chunk type
      * @return The chunk type object
      * @throws InvalidParameterException If the chunk type is not valid
      */
-    private static ChunkType fromByteArray(byte[] chunk) throws InvalidParameterException {
-        List<Byte> ch = new ArrayList<>(Arrays.asList(new Byte[4]));
+    public static ChunkType fromBuffer(ByteBuffer buffer, int index) throws InvalidParameterException {
+        var chunk = new byte[4];
         for (var i = 0; i < chunk.length; i++) {
-            ch.set(i, chunk[i]);
+            chunk[i] = buffer.get(index + i);
         }
+        return fromByteArray(chunk);
+    }
 
-        if (ch.stream().allMatch(ChunkType::isAsciiAlphabetic) && ChunkType.isConforming(ch)) {
-            return new ChunkType(ch);
+    /**
+     * Creates a {@link ChunkType} from a array of {@code bytes}
+     * 
+     * @param chunk The chunk type as a array of {@code bytes}
+     * @return The chunk type object
+     * @throws InvalidParameterException If the chunk type is not valid
+     */
+    private static ChunkType fromByteArray(byte[] chunk) throws InvalidParameterException {
+        if (ChunkType.isAsciiAlphabetic(chunk) && ChunkType.isConforming(chunk)) {
+            return new ChunkType(chunk);
         } else {
             throw new InvalidParameterException(ChunkType.INVALID_TYPE);
         }
@@ -100,6 +112,23 @@ public class ChunkType {
         return (value > 64 && value < 91) || (value > 96 && value < 123);
     }
 
+    /**
+     * Checks if every byte of the array is a valid {@code ASCII} alphabetic
+     * character
+     * 
+     * @param values The bytes to be checked
+     * @return {@code true} If every byte is a valid {@code ASCII} alphabetic
+     *         character, {@code false} otherwise
+     */
+    private static boolean isAsciiAlphabetic(byte[] values) {
+        for (var value : values) {
+            if (!ChunkType.isAsciiAlphabetic(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Checks if a byte array is conforming, according to the PNG specification
      * 
@@ -134,7 +163,44 @@ public class ChunkType {
      * @return The chunk type representation as a list of bytes
      */
     public List<Byte> asBytes() {
-        return this.chunk;
+        return Bytes.asList(this.chunk);
+    }
+
+    /**
+     * Returns the chunk type data(4 {@code bytes}) as a list of bytes
+     * 
+     * @return The chunk type data
+     */
+    public List<Byte> getChunk() {
+        return this.asBytes();
+    }
+
+    /**
+     * Returns a copy of the chunk type as an array of bytes
+     * 
+     * @return The chunk type representation as an array of bytes
+     */
+    public byte[] asByteArray() {
+        return this.chunk.clone();
+    }
+
+    /**
+     * Checks if this chunk type has the same bytes as the given string
+     * 
+     * @param type The chunk type as a string
+     * @return {@code true} If both represent the same chunk type, {@code false}
+     *         otherwise
+     */
+    public boolean is(String type) {
+        if (type.length() != 4) {
+            return false;
+        }
+        for (var i = 0; i < 4; i++) {
+            if (this.chunk[i] != type.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -143,7 +209,7 @@ public class ChunkType {
      * @return {@code true} If the chunk type is valid, {@code false} otherwise
      */
     public boolean isValid() {
-        return chunk.stream().allMatch(ChunkType::isAsciiAlphabetic) && this.isReservedBitValid();
+        return ChunkType.isAsciiAlphabetic(this.chunk) && this.isReservedBitValid();
     }
 
     /**
@@ -152,7 +218,7 @@ public class ChunkType {
      * @return {@code true} If the chunk type is critical, {@code false} otherwise
      */
     public boolean isCritical() {
-        return (chunk.get(0) & 0x20) == 0;
+        return (chunk[0] & 0x20) == 0;
     }
 
     /**
@@ -161,7 +227,7 @@ public class ChunkType {
      * @return {@code true} If the chunk type is public, {@code false} otherwise
      */
     public boolean isPublic() {
-        return (chunk.get(1) & 0x20) == 0;
+        return (chunk[1] & 0x20) == 0;
     }
 
     /**
@@ -172,7 +238,7 @@ public class ChunkType {
      *         otherwise
      */
     public boolean isReservedBitValid() {
-        return (chunk.get(2) & 0x20) == 0;
+        return (chunk[2] & 0x20) == 0;
     }
 
     /**
@@ -182,15 +248,15 @@ public class ChunkType {
      *         otherwise
      */
     public boolean isSafeToCopy() {
-        return (chunk.get(3) & 0x20) > 0;
+        return (chunk[3] & 0x20) > 0;
     }
 
     public String toString() {
         var builder = new StringBuilder();
-        builder.append((char) chunk.get(0).byteValue());
-        builder.append((char) chunk.get(1).byteValue());
-        builder.append((char) chunk.get(2).byteValue());
-        builder.append((char) chunk.get(3).byteValue());
+        builder.append((char) chunk[0]);
+        builder.append((char) chunk[1]);
+        builder.append((char) chunk[2]);
+        builder.append((char) chunk[3]);
         return builder.toString();
     }
 }
@@ -0,0 +1,64 @@
+package redes.lib;
+
+/**
+ * When the {@link java.util.zip.CRC32} of a parsed chunk is checked
+ */
+public enum CrcPolicy {
+    /**
+     * Every chunk is checked while parsing
+     */
+    STRICT,
+    /**
+     * Only critical chunks and hidden message chunks are checked while parsing
+     */
+    CRITICAL_ONLY,
+    /**
+     * Every chunk is checked on the first access to its data
+     */
+    LAZY,
+    /**
+     * No chunk is checked. Only for trusted sources
+     */
+    NONE;
+
+    /**
+     * Checks if a chunk of the given type must be checked while parsing
+     *
+     * @param chunkType The type of the chunk
+     * @return {@code true} If the chunk must be checked while parsing,
+     *         {@code false} otherwise
+     */
+    public boolean checksOnParse(ChunkType chunkType) {
+        switch (this) {
+            case STRICT:
+                return true;
+            case CRITICAL_ONLY:
+                return chunkType.isCritical() || chunkType.is(ChunkType.HIDDEN_MESSAGE);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Checks if chunks must be checked on the first access to their data
+     *
+     * @return {@code true} If the check is deferred to the first access,
+     *         {@code false} otherwise
+     */
+    public boolean checksOnAccess() {
+        return this == LAZY;
+    }
+
+    /**
+     * Does the same as {@code Enum.valueOf}, but it normalizes the input
+     * beforehand
+     */
+    public static CrcPolicy getEnum(String value) throws IllegalArgumentException {
+        for (var v : values()) {
+            if (v.toString().equals(value.toUpperCase())) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("CRC policy not supported: " + value);
+    }
+}
@@ -1,10 +1,20 @@
 package redes.lib;
 
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
 /**
  * An encoder utility class
+ * <p>
+ * Besides the {@code String} methods, messages can be encoded and decoded in
+ * place on {@code byte[]} and {@link ByteBuffer} ranges, through precomputed
+ * {@code CAESAR} tables and an {@link XorKernel} XORing whole words with the
+ * cached key, without allocating
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class Encoder {
@@ -12,7 +22,28 @@ public class Encoder {
     /**
      * The key used to encode using {@code XOR} encryption
      */
-    private static String key = "projetoRedes";
+    private static final String key = "projetoRedes";
+
+    /**
+     * The bytes of the {@code XOR} key
+     */
+    private static final byte[] KEY_BYTES = key.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The widest {@code XOR} kernel the JVM runs, picked once
+     */
+    private static final XorKernel XOR_KERNEL = XorKernel.best(KEY_BYTES);
+
+    /**
+     * Number of letters of the alphabet shifted by the {@code CAESAR} encryption
+     */
+    private static final int ALPHABET_LENGTH = 26;
+
+    /**
+     * For each {@code CAESAR} offset, the byte each byte is encoded to. Only ASCII
+     * letters are shifted
+     */
+    private static final byte[][] CAESAR_TABLES = caesarTables();
 
     /**
      * Encodes the message using the specified encryption option
@@ -23,8 +54,20 @@ public class Encoder {
      * @return The encrypted message
      */
     public static String encode(String message, String encodeOption, Integer offset) {
+        return encode(message, EncodingOptions.getEnum(encodeOption), offset);
+    }
+
+    /**
+     * Encodes the message using the specified encryption option
+     * 
+     * @param message      Message to be encrypted
+     * @param encodeOption Encryption Option to be used
+     * @param offset       Offset to be used with the {@code CAESAR} encryption
+     * @return The encrypted message
+     */
+    public static String encode(String message, EncodingOptions encodeOption, Integer offset) {
         var newMessage = "";
-        switch (EncodingOptions.getEnum(encodeOption)) {
+        switch (encodeOption) {
             case CAESAR:
                 newMessage = encodeCaesar(message, offset);
                 break;
@@ -57,18 +100,19 @@ public class Encoder {
      * @return The encrypted message
      */
     public static String encode(String message, EncodingOptions encodeOption) {
-        return encode(message, encodeOption.toString(), null);
+        return encode(message, encodeOption, null);
     }
 
     /**
-     * Encodes the message using the specified encryption option
+     * Decodes the message using the specified encryption option
      * 
-     * @param message      Message to be encrypted
-     * @param encodeOption Encryption Option to be used
+     * @param message      Message to be decrypted
+     * @param encodeOption Encryption option to be used
+     * @param offset       Offset to be used with the {@code CAESAR} encryption
      * @return The encrypted message
      */
-    public static String encode(String message, EncodingOptions encodeOption, Integer offset) {
-        return encode(message, encodeOption.toString(), offset);
+    public static String decode(String message, String encodeOption, Integer offset) {
+        return decode(message, EncodingOptions.getEnum(encodeOption), offset);
     }
 
     /**
@@ -79,9 +123,9 @@ public class Encoder {
      * @param offset       Offset to be used with the {@code CAESAR} encryption
      * @return The encrypted message
      */
-    public static String decode(String message, String encodeOption, Integer offset) {
+    public static String decode(String message, EncodingOptions encodeOption, Integer offset) {
         var newMessage = "";
-        switch (EncodingOptions.getEnum(encodeOption)) {
+        switch (encodeOption) {
             case CAESAR:
                 newMessage = decodeCaesar(message, offset);
                 break;
@@ -102,8 +146,8 @@ public class Encoder {
      * @param encodeOption Encryption option to be used
      * @return The encrypted message
      */
-    public static String decode(String message, EncodingOptions encodeOption, Integer offset) {
-        return decode(message, encodeOption.toString(), offset);
+    public static String decode(String message, EncodingOptions encodeOption) {
+        return decode(message, encodeOption, null);
     }
 
     /**
@@ -113,19 +157,122 @@ public class Encoder {
      * @param encodeOption Encryption option to be used
      * @return The encrypted message
      */
-    public static String decode(String message, EncodingOptions encodeOption) {
-        return decode(message, encodeOption.toString(), null);
+    public static String decode(String message, String encodeOption) {
+        return decode(message, encodeOption, null);
     }
 
     /**
-     * Decodes the message using the specified encryption option
+     * Encodes, in place, the bytes of the array in the given range
      * 
-     * @param message      Message to be decrypted
+     * @param data         The bytes to be encrypted
+     * @param from         Index of the first byte to encrypt
+     * @param length       Number of bytes to encrypt
      * @param encodeOption Encryption option to be used
-     * @return The encrypted message
+     * @param offset       Offset to be used with the {@code CAESAR} encryption
+     * @throws IndexOutOfBoundsException If the range is out of the array
      */
-    public static String decode(String message, String encodeOption) {
-        return decode(message, encodeOption, null);
+    public static void encode(byte[] data, int from, int length, EncodingOptions encodeOption, int offset) {
+        Objects.checkFromIndexSize(from, length, data.length);
+        switch (encodeOption) {
+            case CAESAR:
+                translate(data, from, length, CAESAR_TABLES[Math.floorMod(offset, ALPHABET_LENGTH)]);
+                break;
+            case XOR:
+                XOR_KERNEL.apply(data, from, length);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Decodes, in place, the bytes of the array in the given range
+     * 
+     * @param data         The bytes to be decrypted
+     * @param from         Index of the first byte to decrypt
+     * @param length       Number of bytes to decrypt
+     * @param encodeOption Encryption option to be used
+     * @param offset       Offset to be used with the {@code CAESAR} encryption
+     * @throws IndexOutOfBoundsException If the range is out of the array
+     */
+    public static void decode(byte[] data, int from, int length, EncodingOptions encodeOption, int offset) {
+        encode(data, from, length, encodeOption, -offset);
+    }
+
+    /**
+     * Encodes, in place, the remaining bytes of the buffer. Its position is not
+     * moved
+     * 
+     * @param data         The bytes to be encrypted
+     * @param encodeOption Encryption option to be used
+     * @param offset       Offset to be used with the {@code CAESAR} encryption
+     * @throws ReadOnlyBufferException If the buffer is read-only
+     */
+    public static void encode(ByteBuffer data, EncodingOptions encodeOption, int offset) {
+        if (data.hasArray()) {
+            encode(data.array(), data.arrayOffset() + data.position(), data.remaining(), encodeOption, offset);
+            return;
+        }
+        if (data.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        var position = data.position();
+        var limit = data.limit();
+        if (encodeOption == EncodingOptions.CAESAR) {
+            var table = CAESAR_TABLES[Math.floorMod(offset, ALPHABET_LENGTH)];
+            for (var i = position; i < limit; i++) {
+                data.put(i, table[data.get(i) & 0xFF]);
+            }
+        } else if (encodeOption == EncodingOptions.XOR) {
+            var idx = 0;
+            for (var i = position; i < limit; i++) {
+                data.put(i, (byte) (data.get(i) ^ KEY_BYTES[idx]));
+                if (++idx == KEY_BYTES.length) {
+                    idx = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes, in place, the remaining bytes of the buffer. Its position is not
+     * moved
+     * 
+     * @param data         The bytes to be decrypted
+     * @param encodeOption Encryption option to be used
+     * @param offset       Offset to be used with the {@code CAESAR} encryption
+     * @throws ReadOnlyBufferException If the buffer is read-only
+     */
+    public static void decode(ByteBuffer data, EncodingOptions encodeOption, int offset) {
+        encode(data, encodeOption, -offset);
+    }
+
+    /**
+     * Replaces each byte of the range with its entry in the table
+     */
+    private static void translate(byte[] data, int from, int length, byte[] table) {
+        for (var i = from; i < from + length; i++) {
+            data[i] = table[data[i] & 0xFF];
+        }
+    }
+
+    /**
+     * Builds the {@code CAESAR} table of every offset
+     */
+    private static byte[][] caesarTables() {
+        var tables = new byte[ALPHABET_LENGTH][256];
+        for (var offset = 0; offset < ALPHABET_LENGTH; offset++) {
+            for (var value = 0; value < 256; value++) {
+                var shifted = value;
+                if (value >= 'a' && value <= 'z') {
+                    shifted = 'a' + (value - 'a' + offset) % ALPHABET_LENGTH;
+                } else if (value >= 'A' && value <= 'Z') {
+                    shifted = 'A' + (value - 'A' + offset) % ALPHABET_LENGTH;
+                }
+                tables[offset][value] = (byte) shifted;
+            }
+        }
+        return tables;
     }
 
     /**
@@ -174,14 +321,13 @@ public class Encoder {
     private static String encodeXOR(String message) {
         byte idx = 0;
         byte[] msgBytes = message.getBytes();
-        byte[] keyBytes = key.getBytes();
         var newMessage = new byte[message.length()];
 
         for (var i = 0; i < message.length(); i++) {
-            if (idx == key.length()) {
+            if (idx == KEY_BYTES.length) {
                 idx = 0;
             }
-            newMessage[i] = (byte) (msgBytes[i] ^ keyBytes[idx++]);
+            newMessage[i] = (byte) (msgBytes[i] ^ KEY_BYTES[idx++]);
         }
 
         return new String(newMessage);
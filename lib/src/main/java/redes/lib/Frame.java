@@ -0,0 +1,103 @@
+package redes.lib;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A message of the binary protocol: a type byte, the payload length as an
+ * integer and the payload
+ * <p>
+ * Used instead of text lines once {@link Protocol#FRAMES} is negotiated, so the
+ * messages are read without any string work and may contain any byte
+ */
+@AllArgsConstructor
+public class Frame {
+
+    /**
+     * Number of bytes used by the type and length fields
+     */
+    public static final int HEADER_LENGTH = 5;
+
+    /**
+     * Frame carrying a {@link ScanResult}
+     */
+    public static final byte RESULT = 1;
+
+    /**
+     * Frame telling that the connection will end, without payload
+     */
+    public static final byte BYE = 2;
+
+    /**
+     * Frame asking for the bytes of an offered image, its payload is the request
+     * id as an integer
+     */
+    public static final byte NEED = 3;
+
+    /**
+     * The type of the frame
+     */
+    @Getter
+    private final byte type;
+
+    /**
+     * The payload of the frame
+     */
+    private final ByteBuffer payload;
+
+    /**
+     * Returns a read-only view of the payload
+     *
+     * @return The payload
+     */
+    public ByteBuffer getPayload() {
+        return this.payload.asReadOnlyBuffer();
+    }
+
+    /**
+     * Creates a frame without payload
+     *
+     * @param type The type of the frame
+     * @return The frame
+     */
+    public static Frame of(byte type) {
+        return new Frame(type, ByteBuffer.allocate(0));
+    }
+
+    /**
+     * Reads the next frame of the stream
+     *
+     * @param input The stream to read from
+     * @return The frame read
+     * @throws IOException               If the stream ends before the frame
+     * @throws InvalidParameterException If the frame length is not valid
+     */
+    public static Frame read(DataInputStream input) throws IOException {
+        var type = input.readByte();
+        var length = input.readInt();
+        if (length < 0) {
+            throw new InvalidParameterException("Invalid frame length");
+        }
+        var payload = new byte[length];
+        input.readFully(payload);
+        return new Frame(type, ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Returns the representation of the frame ready to be sent
+     *
+     * @return The frame representation
+     */
+    public ByteBuffer asByteBuffer() {
+        var buffer = ByteBuffer.allocate(HEADER_LENGTH + this.payload.remaining());
+        buffer.put(this.type);
+        buffer.putInt(this.payload.remaining());
+        buffer.put(this.payload.duplicate());
+        return buffer.flip();
+    }
+}
@@ -0,0 +1,204 @@
+package redes.lib;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * A PNG file mapped in memory with {@link FileChannel#map}
+ * <p>
+ * The chunk layout is read lazily, walking only the chunk headers, so looking
+ * for a chunk touches the pages holding the headers and never the data of the
+ * chunks skipped over. Chunks handed out are views over the mapped file
+ */
+public class MappedPng {
+    private static final String INVALID_HEADER = "Invalid Header. The file may not be a valid PNG image";
+
+    /**
+     * The chunk type ending every PNG
+     */
+    private static final String END_CHUNK_TYPE = "IEND";
+
+    /**
+     * The mapped file
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * When the chunks {@link java.util.zip.CRC32} is checked
+     */
+    private final CrcPolicy policy;
+
+    /**
+     * The chunk locations read so far
+     */
+    private final List<ChunkLocation> locations = new ArrayList<>();
+
+    /**
+     * Offset of the next chunk header to be read
+     */
+    private int next;
+
+    private MappedPng(MappedByteBuffer buffer, CrcPolicy policy) {
+        this.buffer = buffer;
+        this.policy = policy;
+        this.next = Png.signature().length;
+    }
+
+    /**
+     * Maps the given file and validates its PNG signature. The file is mapped
+     * read-only and must not be larger than 2 GB
+     *
+     * @param path The path of the PNG file
+     * @return The mapped PNG
+     * @throws IOException              If the file could not be mapped
+     * @throws IllegalArgumentException If the signature is not a valid PNG header
+     */
+    public static MappedPng open(Path path) throws IOException, IllegalArgumentException {
+        return open(path, CrcPolicy.STRICT);
+    }
+
+    /**
+     * Maps the given file and validates its PNG signature. The file is mapped
+     * read-only and must not be larger than 2 GB
+     *
+     * @param path   The path of the PNG file
+     * @param policy When the {@link java.util.zip.CRC32} of the chunks handed out
+     *               is checked
+     * @return The mapped PNG
+     * @throws IOException              If the file could not be mapped
+     * @throws IllegalArgumentException If the signature is not a valid PNG header
+     */
+    public static MappedPng open(Path path, CrcPolicy policy) throws IOException, IllegalArgumentException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!Png.isHeaderValid(buffer)) {
+                throw new IllegalArgumentException(INVALID_HEADER);
+            }
+            return new MappedPng(buffer, policy);
+        }
+    }
+
+    /**
+     * Returns the size of the mapped file
+     *
+     * @return The file size
+     */
+    public long size() {
+        return this.buffer.capacity();
+    }
+
+    /**
+     * Reads the whole chunk layout, if not read yet
+     *
+     * @return The location of every chunk, in file order
+     */
+    public List<ChunkLocation> layout() {
+        while (this.scanNext() != null) {
+            // Reads the remaining headers
+        }
+        return Collections.unmodifiableList(this.locations);
+    }
+
+    /**
+     * Looks for the first chunk of the given type, reading no more of the layout
+     * than needed
+     *
+     * @param chunkType The chunk type to search for
+     * @return The location of the first chunk of the given type if any is found,
+     *         empty otherwise
+     */
+    public Optional<ChunkLocation> locate(String chunkType) {
+        for (var location : this.locations) {
+            if (location.getChunkType().is(chunkType)) {
+                return Optional.of(location);
+            }
+        }
+        ChunkLocation location;
+        while ((location = this.scanNext()) != null) {
+            if (location.getChunkType().is(chunkType)) {
+                return Optional.of(location);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Creates the {@code Chunk} found at the given location, as a view over the
+     * mapped file
+     *
+     * @param location The location of the chunk
+     * @return The chunk
+     */
+    public Chunk chunkAt(ChunkLocation location) {
+        var view = this.buffer.duplicate();
+        view.position((int) location.getOffset());
+        return Chunk.fromBuffer(view, this.policy);
+    }
+
+    /**
+     * Iterates over the layout looking for the first chunk of the given type
+     *
+     * @param chunkType The chunk type to search for
+     * @return The first {@code Chunk} of the specified type if any is found, empty
+     *         otherwise
+     */
+    public Optional<Chunk> chunkByType(String chunkType) {
+        return this.locate(chunkType).map(this::chunkAt);
+    }
+
+    /**
+     * Creates a {@code Png} whose chunks are views over the mapped file
+     *
+     * @return The {@code Png}
+     */
+    public Png toPng() {
+        List<Chunk> chunks = new ArrayList<>();
+        for (var location : this.layout()) {
+            chunks.add(this.chunkAt(location));
+        }
+        return Png.fromChunks(chunks);
+    }
+
+    /**
+     * Creates a {@code Png} holding only the chunks accepted by the filter,
+     * followed by an {@code IEND} chunk. Only the data of the kept chunks is
+     * touched, the rest of the file is skipped over
+     *
+     * @param filter Returns {@code true} for the chunk types to be kept
+     * @return The stripped {@code Png}, whose chunks are views over the mapped file
+     */
+    public Png strip(Predicate<ChunkType> filter) {
+        List<Chunk> chunks = new ArrayList<>();
+        for (var location : this.layout()) {
+            var chunkType = location.getChunkType();
+            if (!chunkType.is(END_CHUNK_TYPE) && filter.test(chunkType)) {
+                chunks.add(this.chunkAt(location));
+            }
+        }
+        chunks.add(new Chunk(ChunkType.fromString(END_CHUNK_TYPE), new byte[0]));
+        return Png.fromChunks(chunks);
+    }
+
+    /**
+     * Reads the next chunk header of the file
+     *
+     * @return The location of the chunk, or {@code null} at the end of the file
+     */
+    private ChunkLocation scanNext() {
+        if (this.next >= this.buffer.limit()) {
+            return null;
+        }
+        var location = ChunkLocation.fromBuffer(this.buffer, this.next);
+        this.locations.add(location);
+        this.next = (int) location.endOffset();
+        return location;
+    }
+}
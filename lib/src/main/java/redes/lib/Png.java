@@ -1,10 +1,15 @@
 package redes.lib;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
+import com.google.common.primitives.Bytes;
+
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -17,6 +22,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Png {
    private static final Byte[] STANDARD_HEADER = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+   private static final byte[] SIGNATURE = Bytes.toArray(Arrays.asList(STANDARD_HEADER));
 
    /**
     * The PNG data
@@ -33,17 +39,67 @@ public class Png {
     *                                  PNG header
     */
    public static Png fromBytes(List<Byte> bytes) throws IllegalArgumentException {
-      List<Byte> header = bytes.subList(0, 8);
-      if (Png.isHeaderValid(header)) {
-         var begin = 8;
-         var end = begin + 4;
+      return fromBytes(Bytes.toArray(bytes));
+   }
+
+   /**
+    * Creates a {@code Png} from a {@code byte[]}. The chunks are views over the
+    * given array, so it must not be modified while the {@code Png} is in use
+    * 
+    * @param bytes The bytes to create the Png from
+    * @return A {@code Png} instance
+    * @throws IllegalArgumentException If the header does not correspond the valid
+    *                                  PNG header
+    */
+   public static Png fromBytes(byte[] bytes) throws IllegalArgumentException {
+      return fromBuffer(ByteBuffer.wrap(bytes));
+   }
+
+   /**
+    * Creates a {@code Png} from a {@code byte[]}, checking the chunks
+    * {@link java.util.zip.CRC32} as the policy says
+    * 
+    * @param bytes  The bytes to create the Png from
+    * @param policy When the chunks {@link java.util.zip.CRC32} is checked
+    * @return A {@code Png} instance
+    * @throws IllegalArgumentException If the header does not correspond the valid
+    *                                  PNG header
+    */
+   public static Png fromBytes(byte[] bytes, CrcPolicy policy) throws IllegalArgumentException {
+      return fromBuffer(ByteBuffer.wrap(bytes), policy);
+   }
+
+   /**
+    * Creates a {@code Png} from the remaining bytes of a {@code ByteBuffer}. The
+    * chunks are views over the given buffer, so its content must not be modified
+    * while the {@code Png} is in use
+    * 
+    * @param buffer The buffer to create the Png from
+    * @return A {@code Png} instance
+    * @throws IllegalArgumentException If the header does not correspond the valid
+    *                                  PNG header
+    */
+   public static Png fromBuffer(ByteBuffer buffer) throws IllegalArgumentException {
+      return fromBuffer(buffer, CrcPolicy.STRICT);
+   }
+
+   /**
+    * Creates a {@code Png} from the remaining bytes of a {@code ByteBuffer},
+    * checking the chunks {@link java.util.zip.CRC32} as the policy says
+    * 
+    * @param buffer The buffer to create the Png from
+    * @param policy When the chunks {@link java.util.zip.CRC32} is checked
+    * @return A {@code Png} instance
+    * @throws IllegalArgumentException If the header does not correspond the valid
+    *                                  PNG header
+    */
+   public static Png fromBuffer(ByteBuffer buffer, CrcPolicy policy) throws IllegalArgumentException {
+      var bytes = buffer.duplicate();
+      if (Png.isHeaderValid(bytes)) {
+         bytes.position(bytes.position() + SIGNATURE.length);
          List<Chunk> chunks = new ArrayList<>();
-         while (end < bytes.size()) {
-            int length = ChunkHelper.fromBytesToInt(new ArrayList<>(bytes.subList(begin, end)));
-            end += length + 8;
-            chunks.add(Chunk.fromBytes(new ArrayList<>(bytes.subList(begin, end))));
-            begin = end;
-            end += 4;
+         while (bytes.hasRemaining()) {
+            chunks.add(Chunk.fromBuffer(bytes, policy));
          }
          return new Png(chunks);
       } else {
@@ -71,6 +127,20 @@ public class Png {
       return Arrays.equals(header.toArray(new Byte[0]), Png.STANDARD_HEADER);
    }
 
+   /**
+    * Checks if the bytes starting at the buffer position are a valid PNG header.
+    * The buffer position is left untouched
+    * 
+    * @param buffer The {@code ByteBuffer} to be tested
+    * @return True if the header is a valid PNG header, false otherwise
+    */
+   public static boolean isHeaderValid(ByteBuffer buffer) {
+      if (buffer.remaining() < SIGNATURE.length) {
+         return false;
+      }
+      return ChunkHelper.slice(buffer, buffer.position(), SIGNATURE.length).equals(ByteBuffer.wrap(SIGNATURE));
+   }
+
    /**
     * Appends the given {@code Chunk} to the end of this {@code Png} list of chunks
     * 
@@ -106,20 +176,59 @@ public class Png {
       return Png.STANDARD_HEADER;
    }
 
+   /**
+    * Returns a copy of the standard {@code byte[]} header expected for PNG files
+    * 
+    * @return The {@code byte[]} header
+    */
+   public static byte[] signature() {
+      return Png.SIGNATURE.clone();
+   }
+
    /**
     * Creates a {@code List<Byte>} representation of this {@code Png} data
     * 
     * @return The {@code List<Byte>}
     */
    public List<Byte> asBytes() {
-      var data = new ArrayList<Byte>();
-      data.addAll(Arrays.asList(Png.STANDARD_HEADER));
+      return Bytes.asList(this.asByteArray());
+   }
+
+   /**
+    * Creates a {@code byte[]} representation of this {@code Png} data
+    * 
+    * @return The {@code byte[]}
+    */
+   public byte[] asByteArray() {
+      var size = Png.SIGNATURE.length;
+      for (var chunk : this.chunks) {
+         size += chunk.totalLength();
+      }
 
+      var buffer = ByteBuffer.allocate(size);
+      buffer.put(Png.SIGNATURE);
       for (var chunk : this.chunks) {
-         data.addAll(chunk.asBytes());
+         chunk.writeTo(buffer);
       }
 
-      return data;
+      return buffer.array();
+   }
+
+   /**
+    * Writes this {@code Png} data to the given channel, chunk by chunk, without
+    * building a copy of the whole image
+    * 
+    * @param channel The channel to write to
+    * @throws IOException If the image could not be written
+    */
+   public void writeTo(WritableByteChannel channel) throws IOException {
+      var signature = ByteBuffer.wrap(Png.signature());
+      while (signature.hasRemaining()) {
+         channel.write(signature);
+      }
+      for (var chunk : this.chunks) {
+         chunk.writeTo(channel);
+      }
    }
 
    /**
@@ -132,7 +241,7 @@ public class Png {
     */
    public Optional<Chunk> chunkByType(String chunkType) {
       for (var chunk : this.chunks) {
-         if (chunk.getChunkType().toString().equals(chunkType)) {
+         if (chunk.getChunkType().is(chunkType)) {
             return Optional.of(chunk);
          }
       }
@@ -0,0 +1,359 @@
+package redes.lib;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+
+/**
+ * Generates valid PNG images of a chosen layout, for benchmarks and load tests
+ * <p>
+ * The image is 8 bit grayscale noise, so its data does not compress, split in
+ * the chosen number of {@code IDAT} chunks. {@code tEXt} chunks are spread
+ * before and after the image data, and the hidden message chunks are placed at
+ * the chosen {@link Placement}. Every random choice comes from the seed, so the
+ * same seed and settings always give the same bytes
+ */
+public class PngGenerator {
+
+    /**
+     * Where the hidden message chunks are placed
+     */
+    public enum Placement {
+        /**
+         * Right after {@code IHDR}, so a scanner finds them first
+         */
+        START,
+        /**
+         * Right after the last {@code IDAT}, as the image data chunks must be
+         * consecutive
+         */
+        MIDDLE,
+        /**
+         * Right before {@code IEND}, so a scanner finds them last
+         */
+        END;
+
+        /**
+         * Does the same as {@code Enum.valueOf}, but it normalizes the input
+         * beforehand
+         */
+        public static Placement getEnum(String value) throws IllegalArgumentException {
+            for (var v : values()) {
+                if (v.toString().equals(value.toUpperCase())) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Placement not supported: " + value);
+        }
+    }
+
+    /**
+     * How the image data is split between the {@code IDAT} chunks
+     */
+    public enum Split {
+        /**
+         * Chunks of the same size, the last one taking what is left
+         */
+        EVEN,
+        /**
+         * Chunks of random sizes, each one at least a byte long
+         */
+        RANDOM;
+
+        /**
+         * Does the same as {@code Enum.valueOf}, but it normalizes the input
+         * beforehand
+         */
+        public static Split getEnum(String value) throws IllegalArgumentException {
+            for (var v : values()) {
+                if (v.toString().equals(value.toUpperCase())) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Split not supported: " + value);
+        }
+    }
+
+    /**
+     * Width of the generated images, in pixels
+     */
+    private static final int WIDTH = 1024;
+
+    /**
+     * Length of the {@code IHDR} chunk data
+     */
+    private static final int HEADER_LENGTH = 13;
+
+    /**
+     * Keyword of the generated {@code tEXt} chunks
+     */
+    private static final String TEXT_KEYWORD = "Comment";
+
+    /**
+     * Longest text of the generated {@code tEXt} chunks
+     */
+    private static final int MAX_TEXT_LENGTH = 256;
+
+    private final long seed;
+    private long size = 64 * 1024;
+    private int idatChunks = 1;
+    private Split split = Split.EVEN;
+    private int ancillaryChunks;
+    private int hiddenChunks = 1;
+    private Placement placement = Placement.END;
+    private String message;
+    private EncodingOptions encoding = EncodingOptions.CAESAR;
+    private int offset = 13;
+
+    /**
+     * Creates a generator of images with a single {@code IDAT}, no ancillary
+     * chunk and a random message hidden with {@code CAESAR} before {@code IEND},
+     * about 64 KiB long
+     *
+     * @param seed The seed of every random choice
+     */
+    public PngGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the length of the images. It is reached as closely as whole rows of
+     * pixels allow, below it unless the other chunks leave no room for a row
+     *
+     * @param size The length of the images, in bytes
+     * @return This generator
+     */
+    public PngGenerator size(long size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Sets the number of {@code IDAT} chunks and how the image data is split
+     * between them
+     *
+     * @param idatChunks The number of chunks, at least one
+     * @param split      How the image data is split
+     * @return This generator
+     * @throws IllegalArgumentException If the number of chunks is not positive
+     */
+    public PngGenerator idatChunks(int idatChunks, Split split) throws IllegalArgumentException {
+        if (idatChunks < 1) {
+            throw new IllegalArgumentException("There must be at least one IDAT chunk");
+        }
+        this.idatChunks = idatChunks;
+        this.split = split;
+        return this;
+    }
+
+    /**
+     * Sets the number of {@code tEXt} chunks
+     *
+     * @param ancillaryChunks The number of chunks
+     * @return This generator
+     */
+    public PngGenerator ancillaryChunks(int ancillaryChunks) {
+        this.ancillaryChunks = ancillaryChunks;
+        return this;
+    }
+
+    /**
+     * Sets the number of hidden message chunks and where they are placed
+     *
+     * @param hiddenChunks The number of chunks, none for an image without a
+     *                     message
+     * @param placement    Where the chunks are placed
+     * @return This generator
+     */
+    public PngGenerator hiddenChunks(int hiddenChunks, Placement placement) {
+        this.hiddenChunks = hiddenChunks;
+        this.placement = placement;
+        return this;
+    }
+
+    /**
+     * Sets the hidden message and its encryption
+     *
+     * @param message  The message, made of lower case letters and spaces, or
+     *                 {@code null} for a random one
+     * @param encoding The encryption of the message
+     * @param offset   Offset used with the {@code CAESAR} encryption, between 0
+     *                 and 25
+     * @return This generator
+     */
+    public PngGenerator message(String message, EncodingOptions encoding, int offset) {
+        this.message = message;
+        this.encoding = encoding;
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Generates the image
+     *
+     * @return The image
+     */
+    public Png generate() {
+        var random = new Random(seed);
+        var hidden = hiddenChunk(random);
+        List<Chunk> before = new ArrayList<>();
+        List<Chunk> after = new ArrayList<>();
+        for (var i = 0; i < ancillaryChunks; i++) {
+            var chunk = textChunk(random);
+            (random.nextBoolean() ? before : after).add(chunk);
+        }
+
+        var rest = (long) Png.signature().length + Chunk.OVERHEAD * (2L + idatChunks)
+                + HEADER_LENGTH;
+        for (var chunk : before) {
+            rest += chunk.totalLength();
+        }
+        for (var chunk : after) {
+            rest += chunk.totalLength();
+        }
+        rest += (long) hiddenChunks * hidden.totalLength();
+        var data = imageData(random, size - rest);
+        var height = data.length;
+
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(new Chunk(ChunkType.fromString("IHDR"), header(height)));
+        addHidden(chunks, hidden, Placement.START);
+        chunks.addAll(before);
+        chunks.addAll(idat(random, compress(data)));
+        addHidden(chunks, hidden, Placement.MIDDLE);
+        chunks.addAll(after);
+        addHidden(chunks, hidden, Placement.END);
+        chunks.add(new Chunk(ChunkType.fromString("IEND"), new byte[0]));
+        return Png.fromChunks(chunks);
+    }
+
+    private void addHidden(List<Chunk> chunks, Chunk hidden, Placement at) {
+        if (placement == at) {
+            for (var i = 0; i < hiddenChunks; i++) {
+                chunks.add(hidden);
+            }
+        }
+    }
+
+    /**
+     * Creates the hidden message chunk, its first byte holding the encryption
+     * and the {@code CAESAR} offset as the client writes it
+     */
+    private Chunk hiddenChunk(Random random) {
+        var text = message != null ? message : letters(random, 32);
+        var bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        var data = new byte[bytes.length + 1];
+        data[0] = encoding.getValue();
+        if (encoding == EncodingOptions.CAESAR) {
+            data[0] |= (byte) (offset << 3);
+        }
+        System.arraycopy(bytes, 0, data, 1, bytes.length);
+        Encoder.encode(data, 1, bytes.length, encoding, offset);
+        return new Chunk(ChunkType.fromString(ChunkType.HIDDEN_MESSAGE), data);
+    }
+
+    /**
+     * Creates a {@code tEXt} chunk of random length
+     */
+    private static Chunk textChunk(Random random) {
+        var text = letters(random, 1 + random.nextInt(MAX_TEXT_LENGTH));
+        var data = (TEXT_KEYWORD + '\0' + text).getBytes(StandardCharsets.ISO_8859_1);
+        return new Chunk(ChunkType.fromString("tEXt"), data);
+    }
+
+    /**
+     * Creates lower case letters separated by spaces
+     */
+    private static String letters(Random random, int length) {
+        var text = new StringBuilder(length);
+        for (var i = 0; i < length; i++) {
+            text.append(i % 6 == 5 ? ' ' : (char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Creates the {@code IHDR} data of an 8 bit grayscale image
+     */
+    private static byte[] header(int height) {
+        return ByteBuffer.allocate(HEADER_LENGTH).putInt(WIDTH).putInt(height)
+                // Bit depth, color type, compression, filter and interlace methods
+                .put((byte) 8).put((byte) 0).put((byte) 0).put((byte) 0).put((byte) 0).array();
+    }
+
+    /**
+     * Creates rows of noise, each one starting with the "none" filter, as many as
+     * fit in the given length once compressed, and at least one
+     *
+     * @return The rows
+     */
+    private static byte[][] imageData(Random random, long length) {
+        // The rows are stored without compression, which adds 5 bytes per block
+        // of up to 64 KiB and 6 bytes of zlib header and checksum
+        var available = length - 6 - 5 * (length / 65535 + 1);
+        var rows = (int) Math.max(1, Math.min(Integer.MAX_VALUE, available / (WIDTH + 1)));
+        var data = new byte[rows][WIDTH + 1];
+        for (var row : data) {
+            random.nextBytes(row);
+            row[0] = 0;
+        }
+        return data;
+    }
+
+    private static byte[] compress(byte[][] rows) {
+        var deflater = new Deflater(Deflater.NO_COMPRESSION);
+        var output = new ByteArrayOutputStream(rows.length * (WIDTH + 1) + 1024);
+        var buffer = new byte[64 * 1024];
+        for (var row : rows) {
+            deflater.setInput(row);
+            while (!deflater.needsInput()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return output.toByteArray();
+    }
+
+    /**
+     * Splits the compressed data in {@code IDAT} chunks. Never creates more
+     * chunks than there are bytes
+     */
+    private List<Chunk> idat(Random random, byte[] data) {
+        var count = Math.min(idatChunks, data.length);
+        var ends = new int[count];
+        if (split == Split.EVEN) {
+            for (var i = 0; i < count; i++) {
+                ends[i] = (int) ((long) data.length * (i + 1) / count);
+            }
+        } else {
+            // Picks distinct cut points, so no chunk is empty
+            var cuts = new TreeSet<Integer>();
+            while (cuts.size() < count - 1) {
+                cuts.add(1 + random.nextInt(data.length - 1));
+            }
+            var i = 0;
+            for (var cut : cuts) {
+                ends[i++] = cut;
+            }
+            ends[count - 1] = data.length;
+        }
+
+        var type = ChunkType.fromString("IDAT");
+        List<Chunk> chunks = new ArrayList<>(count);
+        var start = 0;
+        for (var end : ends) {
+            chunks.add(new Chunk(type, ByteBuffer.wrap(data, start, end - start)));
+            start = end;
+        }
+        return chunks;
+    }
+}
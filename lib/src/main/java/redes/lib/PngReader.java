@@ -0,0 +1,193 @@
+package redes.lib;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.security.InvalidParameterException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the chunks of a PNG one at a time from a stream, so only the chunks kept
+ * by the caller stay in memory
+ * <p>
+ * The stream is read in fixed size buffers fed to a {@link PngScanner}, so the
+ * {@link java.util.zip.CRC32} of each chunk is computed while its bytes arrive.
+ * <p>
+ * Like {@link Png#fromBytes(byte[])}, chunks are read until the end of the
+ * stream, including any chunk found after {@code IEND}. The underlying stream is
+ * not closed by the reader
+ */
+public class PngReader implements Iterator<Chunk> {
+    private static final String INVALID_HEADER = "Invalid Header. The file may not be a valid PNG image";
+
+    /**
+     * Size of the buffer the stream is read into
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The source of the PNG bytes
+     */
+    private final ReadableByteChannel channel;
+
+    /**
+     * Parser keeping every chunk
+     */
+    private final PngScanner scanner;
+
+    /**
+     * Bytes read from the stream and not yet parsed
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Whether the end of the stream was reached
+     */
+    private boolean finished;
+
+    /**
+     * Chunk read ahead by {@link #hasNext()}
+     */
+    private Chunk next;
+
+    /**
+     * Creates a reader over the given channel and validates the PNG signature
+     *
+     * @param channel The channel to read the PNG from
+     * @throws IOException              If the signature could not be read
+     * @throws IllegalArgumentException If the signature is not a valid PNG header
+     */
+    public PngReader(ReadableByteChannel channel) throws IOException, IllegalArgumentException {
+        this(channel, CrcPolicy.STRICT);
+    }
+
+    /**
+     * Creates a reader over the given channel and validates the PNG signature
+     *
+     * @param channel The channel to read the PNG from
+     * @param policy  When the chunks {@link java.util.zip.CRC32} is checked
+     * @throws IOException              If the signature could not be read
+     * @throws IllegalArgumentException If the signature is not a valid PNG header
+     */
+    public PngReader(ReadableByteChannel channel, CrcPolicy policy) throws IOException, IllegalArgumentException {
+        this.channel = channel;
+        this.scanner = new PngScanner(type -> true, policy);
+        this.buffer.flip();
+
+        var signatureLength = Png.signature().length;
+        while (this.buffer.remaining() < signatureLength) {
+            if (!this.fill()) {
+                throw new IllegalArgumentException(INVALID_HEADER);
+            }
+        }
+        var signature = ChunkHelper.slice(this.buffer, this.buffer.position(), signatureLength);
+        this.scanner.next(signature);
+        this.buffer.position(this.buffer.position() + signatureLength);
+    }
+
+    /**
+     * Creates a reader over the given stream and validates the PNG signature
+     *
+     * @param input The stream to read the PNG from
+     * @throws IOException              If the signature could not be read
+     * @throws IllegalArgumentException If the signature is not a valid PNG header
+     */
+    public PngReader(InputStream input) throws IOException, IllegalArgumentException {
+        this(Channels.newChannel(input));
+    }
+
+    /**
+     * Creates a reader over the given stream and validates the PNG signature
+     *
+     * @param input  The stream to read the PNG from
+     * @param policy When the chunks {@link java.util.zip.CRC32} is checked
+     * @throws IOException              If the signature could not be read
+     * @throws IllegalArgumentException If the signature is not a valid PNG header
+     */
+    public PngReader(InputStream input, CrcPolicy policy) throws IOException, IllegalArgumentException {
+        this(Channels.newChannel(input), policy);
+    }
+
+    /**
+     * Reads the next chunk of the stream
+     *
+     * @return The next chunk, or {@code null} if there are no more chunks
+     * @throws IOException               If the stream ends in the middle of a chunk
+     * @throws InvalidParameterException If a chunk is not valid
+     */
+    public Chunk readChunk() throws IOException {
+        if (this.next != null) {
+            var chunk = this.next;
+            this.next = null;
+            return chunk;
+        }
+        if (this.finished) {
+            return null;
+        }
+
+        while (true) {
+            var chunk = this.scanner.next(this.buffer);
+            if (chunk != null) {
+                return chunk;
+            }
+            if (!this.fill()) {
+                this.finished = true;
+                if (!this.scanner.isAtChunkBoundary()) {
+                    throw new EOFException("Stream ended before the end of the chunk");
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes parsed, signature included
+     *
+     * @return The number of bytes parsed
+     */
+    public long getPosition() {
+        return this.scanner.getPosition();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null) {
+            try {
+                this.next = this.readChunk();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public Chunk next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var chunk = this.next;
+        this.next = null;
+        return chunk;
+    }
+
+    /**
+     * Reads more bytes from the channel, keeping the ones not parsed yet
+     *
+     * @return {@code false} if the stream ended
+     */
+    private boolean fill() throws IOException {
+        this.buffer.compact();
+        var read = 0;
+        while (read == 0) {
+            read = this.channel.read(this.buffer);
+        }
+        this.buffer.flip();
+        return read > 0;
+    }
+}
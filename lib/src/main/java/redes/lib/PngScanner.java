@@ -0,0 +1,278 @@
+package redes.lib;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import lombok.Getter;
+
+/**
+ * Incremental PNG parser fed with buffers as the bytes arrive
+ * <p>
+ * Only the chunks accepted by the given filter are kept in memory and handed
+ * out. The data of every other chunk is skipped over as it arrives, without
+ * being stored, so huge {@code IDAT} chunks cost nothing but the time to receive
+ * them
+ * <p>
+ * The {@link CRC32} of every chunk the policy checks while parsing, kept or
+ * skipped, is updated with each buffer as it arrives, so a chunk is validated as
+ * soon as its last byte is received, without a second pass over its data
+ */
+public class PngScanner {
+    private static final String INVALID_HEADER = "Invalid Header. The file may not be a valid PNG image";
+    private static final String INVALID_CHUNK = "Invalid chunk";
+
+    /**
+     * Parsing states
+     */
+    private enum State {
+        SIGNATURE, HEADER, DATA, CRC
+    }
+
+    /**
+     * Chooses which chunks are kept
+     */
+    private final Predicate<ChunkType> filter;
+
+    /**
+     * When the {@link java.util.zip.CRC32} of the kept chunks is checked
+     */
+    private final CrcPolicy policy;
+
+    /**
+     * Buffer holding the signature or the header of the chunk being read
+     */
+    private final ByteBuffer header = ByteBuffer.allocate(8);
+
+    /**
+     * Buffer holding the {@link CRC32} of the chunk being read
+     */
+    private final ByteBuffer crcBytes = ByteBuffer.allocate(4);
+
+    /**
+     * The {@link CRC32} of the chunk being read, updated as its bytes arrive
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Current parsing state
+     */
+    private State state = State.SIGNATURE;
+
+    /**
+     * The type of the chunk being read
+     */
+    private ChunkType chunkType;
+
+    /**
+     * The data of the chunk being kept, {@code null} if the chunk is skipped
+     */
+    private ByteBuffer data;
+
+    /**
+     * Data bytes left of the chunk being read
+     */
+    private int remaining;
+
+    /**
+     * Whether the {@link CRC32} of the chunk being read is checked
+     */
+    private boolean checking;
+
+    /**
+     * Number of bytes of the image, signature included, so a chunk claiming to
+     * end past it is rejected before its data arrives
+     */
+    private final long length;
+
+    /**
+     * Longest data accepted for a kept chunk, so a forged length cannot make the
+     * scanner allocate more than this
+     */
+    private final int maxKeptLength;
+
+    /**
+     * Number of bytes consumed, signature included
+     */
+    @Getter
+    private long position;
+
+    /**
+     * Creates a scanner keeping only the chunks accepted by the filter
+     *
+     * @param filter Returns {@code true} for the chunk types to be kept
+     */
+    public PngScanner(Predicate<ChunkType> filter) {
+        this(filter, CrcPolicy.STRICT);
+    }
+
+    /**
+     * Creates a scanner keeping only the chunks accepted by the filter
+     *
+     * @param filter Returns {@code true} for the chunk types to be kept
+     * @param policy When the {@link java.util.zip.CRC32} of the kept chunks is
+     *               checked
+     */
+    public PngScanner(Predicate<ChunkType> filter, CrcPolicy policy) {
+        this(filter, policy, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a scanner keeping only the chunks accepted by the filter, for an
+     * image of known length whose kept chunks are at most the given length
+     *
+     * @param filter        Returns {@code true} for the chunk types to be kept
+     * @param policy        When the {@link java.util.zip.CRC32} of the kept chunks
+     *                      is checked
+     * @param length        Number of bytes of the image, signature included
+     * @param maxKeptLength Longest data accepted for a kept chunk
+     */
+    public PngScanner(Predicate<ChunkType> filter, CrcPolicy policy, long length, int maxKeptLength) {
+        this.filter = filter;
+        this.policy = policy;
+        this.length = length;
+        this.maxKeptLength = maxKeptLength;
+    }
+
+    /**
+     * Consumes the input until a kept chunk is complete or the input runs out.
+     * Bytes following a complete chunk are left in the input for the next call
+     *
+     * @param input The bytes received so far
+     * @return The kept chunk completed by the input, or {@code null} if more bytes
+     *         are needed
+     * @throws IllegalArgumentException  If the signature is not a valid PNG header
+     * @throws InvalidParameterException If a chunk is not valid
+     */
+    public Chunk next(ByteBuffer input) throws IllegalArgumentException {
+        while (input.hasRemaining()) {
+            switch (this.state) {
+                case SIGNATURE:
+                    this.fill(input, this.header);
+                    if (!this.header.hasRemaining()) {
+                        this.header.flip();
+                        if (!Png.isHeaderValid(this.header)) {
+                            throw new IllegalArgumentException(INVALID_HEADER);
+                        }
+                        this.header.clear();
+                        this.state = State.HEADER;
+                    }
+                    break;
+                case HEADER:
+                    this.fill(input, this.header);
+                    if (!this.header.hasRemaining()) {
+                        this.startChunk();
+                    }
+                    break;
+                case DATA:
+                    this.consumeData(input);
+                    break;
+                case CRC:
+                    this.fill(input, this.crcBytes);
+                    if (!this.crcBytes.hasRemaining()) {
+                        var complete = this.endChunk();
+                        if (complete != null) {
+                            return complete;
+                        }
+                    }
+                    break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the bytes consumed so far end exactly at a chunk boundary
+     *
+     * @return {@code true} If no chunk is partially read, {@code false} otherwise
+     */
+    public boolean isAtChunkBoundary() {
+        return this.state == State.HEADER && this.header.position() == 0;
+    }
+
+    /**
+     * Reads the header just completed and decides whether the chunk is kept or
+     * skipped
+     */
+    private void startChunk() {
+        int length = ChunkHelper.readInt(this.header, 0);
+        // The header was consumed, only the data and the CRC are left
+        if (length < 0 || this.position + length + this.crcBytes.capacity() > this.length) {
+            throw new InvalidParameterException("Invalid chunk length");
+        }
+        this.chunkType = ChunkType.fromBuffer(this.header, 4);
+        var kept = this.filter.test(this.chunkType);
+        if (kept && length > this.maxKeptLength) {
+            throw new InvalidParameterException("Chunk too long: " + length + " bytes");
+        }
+
+        this.checking = this.policy.checksOnParse(this.chunkType);
+        if (this.checking) {
+            this.crc.reset();
+            this.crc.update(this.header.array(), 4, 4);
+        }
+        this.data = kept ? ByteBuffer.allocate(length) : null;
+        this.remaining = length;
+        this.state = length > 0 ? State.DATA : State.CRC;
+        this.header.clear();
+    }
+
+    /**
+     * Consumes the data bytes of the chunk being read found in the input, keeping
+     * them only if the chunk is kept
+     */
+    private void consumeData(ByteBuffer input) {
+        var count = Math.min(this.remaining, input.remaining());
+        var slice = ChunkHelper.slice(input, input.position(), count);
+        if (this.checking) {
+            this.crc.update(slice);
+            slice.rewind();
+        }
+        if (this.data != null) {
+            this.data.put(slice);
+        }
+        input.position(input.position() + count);
+        this.position += count;
+        this.remaining -= count;
+        if (this.remaining == 0) {
+            this.state = State.CRC;
+        }
+    }
+
+    /**
+     * Checks the {@link CRC32} just completed and hands out the chunk if it is
+     * kept
+     *
+     * @return The chunk, or {@code null} if it is skipped
+     * @throws InvalidParameterException If the chunk is not valid
+     */
+    private Chunk endChunk() throws InvalidParameterException {
+        int value = ChunkHelper.readInt(this.crcBytes, 0);
+        this.crcBytes.clear();
+        this.state = State.HEADER;
+        if (this.checking && (int) this.crc.getValue() != value) {
+            throw new InvalidParameterException(INVALID_CHUNK);
+        }
+
+        if (this.data == null) {
+            return null;
+        }
+        this.data.flip();
+        var chunk = Chunk.parsed(this.chunkType, this.data, value, this.policy.checksOnAccess());
+        this.data = null;
+        return chunk;
+    }
+
+    /**
+     * Copies as many bytes as possible from the input to the target
+     */
+    private void fill(ByteBuffer input, ByteBuffer target) {
+        var count = Math.min(input.remaining(), target.remaining());
+        var slice = input.duplicate();
+        slice.limit(slice.position() + count);
+        target.put(slice);
+        input.position(input.position() + count);
+        this.position += count;
+    }
+}
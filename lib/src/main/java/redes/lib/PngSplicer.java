@@ -0,0 +1,231 @@
+package redes.lib;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Adds or replaces a chunk of a PNG file without parsing or rebuilding the
+ * image
+ * <p>
+ * When copying, the original bytes up to the {@code IEND} chunk are copied with
+ * {@link FileChannel#transferTo}, then the new chunk and {@code IEND} are
+ * written, so the cost is close to a plain file copy whatever the image size.
+ * When updating, only the replaced chunk and the bytes following it are
+ * rewritten
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class PngSplicer {
+
+    /**
+     * The chunk type ending every PNG
+     */
+    private static final String END_CHUNK_TYPE = "IEND";
+
+    /**
+     * Size of the blocks used to move data inside a file
+     */
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Copies the source image to the target path, inserting the chunk right
+     * before {@code IEND}. Anything found after {@code IEND} in the source is not
+     * copied
+     *
+     * @param source The original image
+     * @param target Where the new image is written
+     * @param chunk  The chunk to insert
+     * @throws IOException              If the images could not be read or written
+     * @throws IllegalArgumentException If the source is not a valid PNG image
+     */
+    public static void splice(Path source, Path target, Chunk chunk) throws IOException, IllegalArgumentException {
+        var end = MappedPng.open(source).locate(END_CHUNK_TYPE)
+                .orElseThrow(() -> new IllegalArgumentException("The image has no IEND chunk"));
+
+        try (var input = FileChannel.open(source, StandardOpenOption.READ);
+                var output = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            transfer(input, 0, end.getOffset(), output);
+            chunk.writeTo(output);
+            transfer(input, end.getOffset(), Chunk.OVERHEAD, output);
+        }
+    }
+
+    /**
+     * Replaces, in place, the first chunk of the file with the same type as the
+     * given chunk, inserting it right before {@code IEND} if there is none.
+     * Chunks of that type found after {@code IEND}, as older clients appended
+     * them, are removed.
+     * <p>
+     * A chunk of the same size is overwritten and nothing else is touched. When
+     * the size changes, the bytes following the chunk are moved and the file is
+     * resized, which is cheap as long as the chunk is close to the end of the
+     * image
+     *
+     * @param image The image to be updated
+     * @param chunk The new chunk
+     * @throws IOException              If the image could not be read or written
+     * @throws IllegalArgumentException If the image is not a valid PNG image
+     */
+    public static void update(Path image, Chunk chunk) throws IOException, IllegalArgumentException {
+        try (var file = new RandomAccessFile(image.toFile(), "rw")) {
+            var channel = file.getChannel();
+            var locations = locate(channel);
+            var endIndex = endIndex(locations);
+            // Removed from the last one, so the offsets of the others stay valid
+            for (var i = locations.size() - 1; i > endIndex; i--) {
+                if (locations.get(i).getChunkType().equals(chunk.getChunkType())) {
+                    remove(channel, locations.get(i));
+                }
+            }
+
+            var location = locations.get(endIndex);
+            for (var i = 0; i < endIndex; i++) {
+                if (locations.get(i).getChunkType().equals(chunk.getChunkType())) {
+                    location = locations.get(i);
+                    break;
+                }
+            }
+            var start = location.getOffset();
+            // Without a chunk of the same type, an empty region before IEND is replaced
+            var end = location.getChunkType().equals(chunk.getChunkType()) ? location.endOffset() : start;
+
+            var size = channel.size();
+            var newEnd = start + chunk.totalLength();
+            if (newEnd != end) {
+                move(channel, end, newEnd, size - end);
+                channel.truncate(newEnd + size - end);
+            }
+
+            channel.position(start);
+            chunk.writeTo(channel);
+        }
+    }
+
+    /**
+     * Walks the chunk headers of the whole file. Past {@code IEND}, the walk stops
+     * at the first bytes that are not a chunk
+     *
+     * @param channel The image file
+     * @return The location of every chunk, in file order
+     * @throws IllegalArgumentException If the image is not a valid PNG image
+     */
+    private static List<ChunkLocation> locate(FileChannel channel) throws IOException {
+        var signature = ByteBuffer.allocate(Png.signature().length);
+        channel.read(signature, 0);
+        signature.flip();
+        if (!Png.isHeaderValid(signature)) {
+            throw new IllegalArgumentException("Invalid Header. The file may not be a valid PNG image");
+        }
+
+        List<ChunkLocation> locations = new ArrayList<>();
+        var ended = false;
+        long offset = signature.limit();
+        while (offset < channel.size()) {
+            ChunkLocation location;
+            try {
+                location = ChunkLocation.fromChannel(channel, offset);
+            } catch (InvalidParameterException ex) {
+                if (ended) {
+                    break;
+                }
+                throw ex;
+            }
+            locations.add(location);
+            ended |= location.getChunkType().is(END_CHUNK_TYPE);
+            offset = location.endOffset();
+        }
+        return locations;
+    }
+
+    /**
+     * Finds the first {@code IEND} chunk
+     *
+     * @param locations The chunks of the image
+     * @return The index of the chunk
+     * @throws IllegalArgumentException If there is none
+     */
+    private static int endIndex(List<ChunkLocation> locations) throws IllegalArgumentException {
+        for (var i = 0; i < locations.size(); i++) {
+            if (locations.get(i).getChunkType().is(END_CHUNK_TYPE)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("The image has no IEND chunk");
+    }
+
+    /**
+     * Removes a chunk, moving the bytes following it and shrinking the file
+     *
+     * @param channel  The file
+     * @param location The chunk to remove
+     * @throws IOException If the file could not be changed
+     */
+    private static void remove(FileChannel channel, ChunkLocation location) throws IOException {
+        var size = channel.size();
+        move(channel, location.endOffset(), location.getOffset(), size - location.endOffset());
+        channel.truncate(size - (location.endOffset() - location.getOffset()));
+    }
+
+    /**
+     * Moves a region of the file, in blocks, copying in the direction that keeps
+     * overlapping regions intact
+     *
+     * @param channel The file
+     * @param from    The current offset of the region
+     * @param to      The new offset of the region
+     * @param count   The size of the region
+     * @throws IOException If the region could not be moved
+     */
+    private static void move(FileChannel channel, long from, long to, long count) throws IOException {
+        var buffer = ByteBuffer.allocate(BLOCK_SIZE);
+        var done = 0L;
+        while (done < count) {
+            var block = (int) Math.min(BLOCK_SIZE, count - done);
+            // Moving forward copies the last blocks first
+            var start = to > from ? count - done - block : done;
+
+            buffer.clear().limit(block);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, from + start + buffer.position()) < 0) {
+                    throw new IOException("Could not move the image data");
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, to + start + buffer.position());
+            }
+            done += block;
+        }
+    }
+
+    /**
+     * Copies a region of the input to the output, looping until every byte is
+     * transferred
+     *
+     * @param input    The channel to copy from
+     * @param position The first byte of the region
+     * @param count    The size of the region
+     * @param output   The channel to copy to
+     * @throws IOException If the region could not be copied
+     */
+    static void transfer(FileChannel input, long position, long count, FileChannel output) throws IOException {
+        while (count > 0) {
+            var transferred = input.transferTo(position, count, output);
+            if (transferred <= 0) {
+                throw new IOException("Could not copy the image");
+            }
+            position += transferred;
+            count -= transferred;
+        }
+    }
+}
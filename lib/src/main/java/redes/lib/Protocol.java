@@ -0,0 +1,134 @@
+package redes.lib;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Constants shared by the client and the server to negotiate protocol features
+ * <p>
+ * After the "ready" message a client may send a file name starting with
+ * {@link #HELLO}, followed by the features it wants, and a file size of zero.
+ * A server supporting the negotiation answers with a line starting with
+ * {@link #HELLO_REPLY} and the accepted features. Older servers take it as an
+ * empty file, which they either answer as an invalid image or fail on without
+ * answering nor closing the connection, holding one of their connections for
+ * good. So the client only negotiates when it needs a feature, to test many
+ * images or to offer digests or compress, waits for the answer for a limited
+ * time only, then falls back to a connection per image
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class Protocol {
+
+    /**
+     * Prefix of the file name sent to negotiate features. File names never
+     * contain the NUL character
+     */
+    public static final String HELLO = "\0hello";
+
+    /**
+     * First word of the server answer to {@link #HELLO}
+     */
+    public static final String HELLO_REPLY = "hello";
+
+    /**
+     * Many images tested over one connection, each request tagged with an id
+     */
+    public static final String SESSION = "session";
+
+    /**
+     * Answers sent as binary {@link Frame}s instead of text lines
+     */
+    public static final String FRAMES = "frames";
+
+    /**
+     * Session requests offering the digest of an image before its bytes, so
+     * images whose result the server already knows are never uploaded
+     */
+    public static final String DIGEST = "digest";
+
+    /**
+     * Upload bytes sent in blocks, each one deflated when that makes it smaller
+     */
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * Request id telling the server that the session ended
+     */
+    public static final int END_OF_SESSION = -1;
+
+    /**
+     * First word of the lines carrying the result of a session request
+     */
+    public static final String RESULT = "result";
+
+    /**
+     * First word of the lines asking for the bytes of an offered image
+     */
+    public static final String NEED = "need";
+
+    /**
+     * Kind of a {@link #DIGEST} session request carrying the image bytes
+     */
+    public static final byte UPLOAD = 0;
+
+    /**
+     * Kind of a {@link #DIGEST} session request carrying only the digest of the
+     * image
+     */
+    public static final byte OFFER = 1;
+
+    /**
+     * Algorithm of the digest offered for an image
+     */
+    public static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Number of bytes of the digest offered for an image
+     */
+    public static final int DIGEST_LENGTH = 32;
+
+    /**
+     * Kind of a {@link #DEFLATE} block holding the upload bytes as they are
+     */
+    public static final byte BLOCK_RAW = 0;
+
+    /**
+     * Kind of a {@link #DEFLATE} block holding the upload bytes deflated
+     */
+    public static final byte BLOCK_DEFLATED = 1;
+
+    /**
+     * Number of bytes used by the kind and length fields of a block
+     */
+    public static final int BLOCK_HEADER_LENGTH = 5;
+
+    /**
+     * Maximum number of upload bytes in a block, before or after deflating them
+     */
+    public static final int BLOCK_SIZE = 65536;
+
+    /**
+     * Creates the file name negotiating the given features
+     *
+     * @param features The wanted features
+     * @return The file name to send
+     */
+    public static String hello(String... features) {
+        return HELLO + " " + String.join(" ", features);
+    }
+
+    /**
+     * Reads the features listed after the first word of a hello line
+     *
+     * @param line The hello sent by the client or the answer of the server
+     * @return The features, in alphabetical order
+     */
+    public static Set<String> features(String line) {
+        var words = line.trim().split(" +");
+        return new TreeSet<>(Arrays.asList(words).subList(1, words.length));
+    }
+}
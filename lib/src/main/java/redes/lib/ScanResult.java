@@ -0,0 +1,118 @@
+package redes.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * The result of the scan of an image, as sent in a {@link Frame#RESULT} frame
+ * <p>
+ * The payload holds the request id, the status, the time taken to receive and
+ * to scan the upload in microseconds, then the decoded message for
+ * {@link Status#HIDDEN} or the reason for {@link Status#INVALID}, as raw bytes
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ScanResult {
+
+    /**
+     * Outcome of a scan
+     */
+    public enum Status {
+        /**
+         * The image has no hidden message
+         */
+        NONE,
+        /**
+         * The image has a hidden message
+         */
+        HIDDEN,
+        /**
+         * The image is not a valid PNG
+         */
+        INVALID
+    }
+
+    /**
+     * Number of bytes before the data in the payload
+     */
+    private static final int FIXED_LENGTH = 4 + 1 + 8 + 8;
+
+    /**
+     * The id of the request, 0 outside a session
+     */
+    private final int requestId;
+
+    /**
+     * The outcome of the scan
+     */
+    private final Status status;
+
+    /**
+     * Microseconds from the start of the upload to the answer
+     */
+    private final long receiveMicros;
+
+    /**
+     * Microseconds spent parsing the upload
+     */
+    private final long scanMicros;
+
+    /**
+     * The decoded message or the reason the image is invalid, empty otherwise
+     */
+    private final byte[] data;
+
+    /**
+     * Returns the data as text
+     *
+     * @return The decoded message or the reason the image is invalid
+     */
+    public String dataAsString() {
+        return new String(this.data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates the frame carrying this result
+     *
+     * @return The result frame
+     */
+    public Frame toFrame() {
+        var payload = ByteBuffer.allocate(FIXED_LENGTH + this.data.length);
+        payload.putInt(this.requestId);
+        payload.put((byte) this.status.ordinal());
+        payload.putLong(this.receiveMicros);
+        payload.putLong(this.scanMicros);
+        payload.put(this.data);
+        return new Frame(Frame.RESULT, payload.flip());
+    }
+
+    /**
+     * Reads a result from its frame
+     *
+     * @param frame A {@link Frame#RESULT} frame
+     * @return The result
+     * @throws InvalidParameterException If the frame is not a valid result
+     */
+    public static ScanResult fromFrame(Frame frame) throws InvalidParameterException {
+        var payload = frame.getPayload();
+        if (frame.getType() != Frame.RESULT || payload.remaining() < FIXED_LENGTH) {
+            throw new InvalidParameterException("Invalid result frame");
+        }
+        var requestId = payload.getInt();
+        var statusIndex = payload.get();
+        if (statusIndex < 0 || statusIndex >= Status.values().length) {
+            throw new InvalidParameterException("Invalid result status");
+        }
+        var receiveMicros = payload.getLong();
+        var scanMicros = payload.getLong();
+        var data = new byte[payload.remaining()];
+        payload.get(data);
+        return new ScanResult(requestId, Status.values()[statusIndex], receiveMicros, scanMicros, data);
+    }
+}
@@ -0,0 +1,215 @@
+package redes.lib;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * XORs byte ranges, in place, with a repeating key
+ * <p>
+ * The key is repeated into a key stream long enough to be read a whole word at
+ * any key position, so a kernel XORs a word of data with the word of the stream
+ * at the current key position, then moves the position by the word length.
+ * {@link #best(byte[])} picks the widest kernel the JVM runs: lanes of the
+ * Vector API when the {@code jdk.incubator.vector} module is loaded, longs
+ * otherwise. Every kernel finishes the bytes left over one at a time
+ */
+public abstract class XorKernel {
+
+    /**
+     * Name of the class using the Vector API, only compiled and loaded when the
+     * module is available
+     */
+    private static final String VECTOR_KERNEL = "redes.lib.VectorXorKernel";
+
+    /**
+     * The module of the Vector API
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The key
+     */
+    final byte[] key;
+
+    /**
+     * The key repeated, so {@code stream[p + i] == key[(p + i) % key.length]} for
+     * any key position {@code p} and {@code i} below the word length
+     */
+    final byte[] stream;
+
+    /**
+     * Creates a kernel reading words of the given length
+     *
+     * @param key        The key, not empty
+     * @param wordLength The number of bytes XORed at once
+     * @throws IllegalArgumentException If the key is empty
+     */
+    XorKernel(byte[] key, int wordLength) throws IllegalArgumentException {
+        if (key.length == 0) {
+            throw new IllegalArgumentException("The XOR key must not be empty");
+        }
+        this.key = key.clone();
+        this.stream = new byte[key.length - 1 + wordLength];
+        for (var i = 0; i < stream.length; i++) {
+            stream[i] = key[i % key.length];
+        }
+    }
+
+    /**
+     * Creates the widest kernel the JVM runs
+     *
+     * @param key The key, not empty
+     * @return The kernel
+     * @throws IllegalArgumentException If the key is empty
+     */
+    public static XorKernel best(byte[] key) throws IllegalArgumentException {
+        var vector = vector(key);
+        return vector != null ? vector : longs(key);
+    }
+
+    /**
+     * Creates a kernel XORing a byte at a time
+     *
+     * @param key The key, not empty
+     * @return The kernel
+     * @throws IllegalArgumentException If the key is empty
+     */
+    public static XorKernel scalar(byte[] key) throws IllegalArgumentException {
+        return new Scalar(key);
+    }
+
+    /**
+     * Creates a kernel XORing a long at a time
+     *
+     * @param key The key, not empty
+     * @return The kernel
+     * @throws IllegalArgumentException If the key is empty
+     */
+    public static XorKernel longs(byte[] key) throws IllegalArgumentException {
+        return new Longs(key);
+    }
+
+    /**
+     * Creates a kernel XORing the lanes of the preferred vector species at a time
+     *
+     * @param key The key, not empty
+     * @return The kernel, or {@code null} if the Vector API is not loaded or its
+     *         vectors are not wider than a long
+     * @throws IllegalArgumentException If the key is empty
+     */
+    public static XorKernel vector(byte[] key) throws IllegalArgumentException {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            var kernel = (XorKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor(byte[].class)
+                    .newInstance((Object) key);
+            return kernel.getWordLength() > Long.BYTES ? kernel : null;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            // Built without the Vector API
+            return null;
+        }
+    }
+
+    /**
+     * XORs the range with the key, repeated from the first byte of the range
+     *
+     * @param data   The bytes to XOR
+     * @param from   Index of the first byte
+     * @param length Number of bytes
+     */
+    public abstract void apply(byte[] data, int from, int length);
+
+    /**
+     * Returns the number of bytes XORed at once
+     *
+     * @return The word length
+     */
+    public abstract int getWordLength();
+
+    /**
+     * Returns how far the key position moves after a word, so it wraps with a
+     * single subtraction
+     *
+     * @return The word length modulo the key length
+     */
+    int step() {
+        return getWordLength() % key.length;
+    }
+
+    /**
+     * XORs the bytes left after the last whole word, one at a time
+     *
+     * @param data     The bytes to XOR
+     * @param from     Index of the first byte left
+     * @param end      Index after the last byte
+     * @param position The key position of the first byte left
+     */
+    void tail(byte[] data, int from, int end, int position) {
+        for (var i = from; i < end; i++) {
+            data[i] ^= key[position];
+            if (++position == key.length) {
+                position = 0;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + getWordLength() + " bytes)";
+    }
+
+    /**
+     * A byte at a time, the baseline of the other kernels
+     */
+    private static final class Scalar extends XorKernel {
+
+        Scalar(byte[] key) {
+            super(key, 1);
+        }
+
+        @Override
+        public void apply(byte[] data, int from, int length) {
+            tail(data, from, from + length, 0);
+        }
+
+        @Override
+        public int getWordLength() {
+            return 1;
+        }
+    }
+
+    /**
+     * A long at a time, read from the arrays without copying
+     */
+    private static final class Longs extends XorKernel {
+        private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class,
+                ByteOrder.nativeOrder());
+
+        Longs(byte[] key) {
+            super(key, Long.BYTES);
+        }
+
+        @Override
+        public void apply(byte[] data, int from, int length) {
+            var end = from + length;
+            var step = step();
+            var position = 0;
+            var i = from;
+            for (; i <= end - Long.BYTES; i += Long.BYTES) {
+                LONG.set(data, i, (long) LONG.get(data, i) ^ (long) LONG.get(stream, position));
+                position += step;
+                if (position >= key.length) {
+                    position -= key.length;
+                }
+            }
+            tail(data, i, end, position);
+        }
+
+        @Override
+        public int getWordLength() {
+            return Long.BYTES;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package redes.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+public class BlockCompressorTest {
+
+    private static byte[] readBlocks(byte[] sent) throws IOException, DataFormatException {
+        var input = new DataInputStream(new ByteArrayInputStream(sent));
+        var output = new ByteArrayOutputStream();
+        var inflater = new Inflater();
+        var inflated = new byte[Protocol.BLOCK_SIZE];
+        while (input.available() > 0) {
+            var kind = input.readByte();
+            var block = new byte[input.readInt()];
+            input.readFully(block);
+            if (kind == Protocol.BLOCK_DEFLATED) {
+                inflater.reset();
+                inflater.setInput(block);
+                output.write(inflated, 0, inflater.inflate(inflated));
+            } else {
+                output.write(block);
+            }
+        }
+        inflater.end();
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testDeflatesText() throws IOException, DataFormatException {
+        var block = new byte[Protocol.BLOCK_SIZE];
+        Arrays.fill(block, (byte) 'a');
+        var sent = new ByteArrayOutputStream();
+
+        try (var compressor = new BlockCompressor()) {
+            compressor.write(new DataOutputStream(sent), block, block.length);
+            compressor.write(new DataOutputStream(sent), block, 100);
+            assertTrue(compressor.isEnabled());
+            assertTrue(compressor.getRatio() < 0.1);
+            assertEquals(sent.size(), compressor.getSentBytes());
+        }
+
+        var expected = Arrays.copyOf(block, block.length + 100);
+        Arrays.fill(expected, block.length, expected.length, (byte) 'a');
+        assertArrayEquals(expected, readBlocks(sent.toByteArray()));
+    }
+
+    @Test
+    public void testTurnsOffOnRandomData() throws IOException, DataFormatException {
+        var block = new byte[Protocol.BLOCK_SIZE];
+        new Random(7).nextBytes(block);
+        var sent = new ByteArrayOutputStream();
+
+        try (var compressor = new BlockCompressor()) {
+            var blocks = (int) (BlockCompressor.SAMPLE_SIZE / block.length) + 1;
+            for (var i = 0; i < blocks; i++) {
+                compressor.write(new DataOutputStream(sent), block, block.length);
+            }
+            assertFalse(compressor.isEnabled());
+            assertEquals(blocks * (long) (block.length + Protocol.BLOCK_HEADER_LENGTH), compressor.getSentBytes());
+        }
+
+        var received = readBlocks(sent.toByteArray());
+        assertArrayEquals(block, Arrays.copyOf(received, block.length));
+    }
+}
@@ -5,6 +5,7 @@ package redes.lib;
 
 import static org.junit.Assert.assertEquals;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidParameterException;
 import java.util.List;
 
@@ -90,4 +91,45 @@ public class ChunkTest {
         String str = chunk.toString();
         assertEquals("This is where your secret message will be!", str);
     }
+
+    private static byte[] corruptedChunk(String chunkType) {
+        var data = "This is where your secret message will be!";
+        var bytes = new Chunk(ChunkType.fromString(chunkType), data.getBytes()).asByteArray();
+        bytes[10] ^= 1;
+        return bytes;
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testStrictPolicy() {
+        Chunk.fromBuffer(ByteBuffer.wrap(corruptedChunk("RuSt")), CrcPolicy.STRICT);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testCriticalOnlyPolicyChecksCritical() {
+        Chunk.fromBuffer(ByteBuffer.wrap(corruptedChunk("RuSt")), CrcPolicy.CRITICAL_ONLY);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testCriticalOnlyPolicyChecksHiddenMessage() {
+        Chunk.fromBuffer(ByteBuffer.wrap(corruptedChunk("reDe")), CrcPolicy.CRITICAL_ONLY);
+    }
+
+    @Test
+    public void testCriticalOnlyPolicySkipsAncillary() {
+        var chunk = Chunk.fromBuffer(ByteBuffer.wrap(corruptedChunk("ruSt")), CrcPolicy.CRITICAL_ONLY);
+        assertEquals("ruSt", chunk.getChunkType().toString());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testLazyPolicyChecksOnAccess() {
+        var chunk = Chunk.fromBuffer(ByteBuffer.wrap(corruptedChunk("RuSt")), CrcPolicy.LAZY);
+        assertEquals(Integer.valueOf(42), chunk.getLength());
+        chunk.getDataBuffer();
+    }
+
+    @Test
+    public void testNonePolicy() {
+        var chunk = Chunk.fromBuffer(ByteBuffer.wrap(corruptedChunk("RuSt")), CrcPolicy.NONE);
+        assertEquals("Thhs is where your secret message will be!", chunk.toString());
+    }
 }
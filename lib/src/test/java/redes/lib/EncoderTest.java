@@ -1,7 +1,13 @@
 package redes.lib;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 import org.junit.Test;
 
 public class EncoderTest {
@@ -50,4 +56,71 @@ public class EncoderTest {
         decodedMessage = Encoder.decode(cipheredMessage, EncodingOptions.XOR);
         assertEquals(message, decodedMessage);
     }
+
+    @Test
+    public void testBytesMatchStrings() {
+        var message = "wHen I find myself* in times of Trouble,";
+        var bytes = message.getBytes(StandardCharsets.US_ASCII);
+        Encoder.encode(bytes, 0, bytes.length, EncodingOptions.CAESAR, 5);
+        assertEquals(Encoder.encode(message, EncodingOptions.CAESAR, 5), new String(bytes, StandardCharsets.US_ASCII));
+        Encoder.decode(bytes, 0, bytes.length, EncodingOptions.CAESAR, 5);
+        assertEquals(message, new String(bytes, StandardCharsets.US_ASCII));
+
+        Encoder.encode(bytes, 0, bytes.length, EncodingOptions.XOR, 0);
+        assertEquals(Encoder.encode(message, EncodingOptions.XOR), new String(bytes, StandardCharsets.US_ASCII));
+        Encoder.decode(bytes, 0, bytes.length, EncodingOptions.XOR, 0);
+        assertEquals(message, new String(bytes, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testBytesRange() {
+        var bytes = "##mother Mary##".getBytes(StandardCharsets.US_ASCII);
+        Encoder.encode(bytes, 2, 11, EncodingOptions.CAESAR, 29);
+        assertEquals("##prwkhu Pdub##", new String(bytes, StandardCharsets.US_ASCII));
+
+        // The key starts over at the beginning of the range
+        var message = "speAking &Words oF wisdom";
+        var padded = ("--" + message).getBytes(StandardCharsets.US_ASCII);
+        Encoder.encode(padded, 2, message.length(), EncodingOptions.XOR, 0);
+        var expected = Encoder.encode(message, EncodingOptions.XOR).getBytes(StandardCharsets.US_ASCII);
+        assertArrayEquals(expected, Arrays.copyOfRange(padded, 2, padded.length));
+    }
+
+    @Test
+    public void testBuffers() {
+        var message = "$She iS (standIng) right in fRoNt of me";
+        var expected = Encoder.encode(message, EncodingOptions.CAESAR, 18).getBytes(StandardCharsets.US_ASCII);
+
+        var heap = ByteBuffer.wrap(("  " + message).getBytes(StandardCharsets.US_ASCII));
+        heap.position(2);
+        Encoder.encode(heap.slice(), EncodingOptions.CAESAR, 18);
+        assertEquals(2, heap.position());
+        var encoded = new byte[message.length()];
+        heap.get(encoded);
+        assertArrayEquals(expected, encoded);
+
+        var direct = ByteBuffer.allocateDirect(message.length());
+        direct.put(message.getBytes(StandardCharsets.US_ASCII)).flip();
+        Encoder.encode(direct, EncodingOptions.CAESAR, 18);
+        direct.get(encoded);
+        assertArrayEquals(expected, encoded);
+
+        direct.flip();
+        Encoder.decode(direct, EncodingOptions.CAESAR, 18);
+        Encoder.encode(direct, EncodingOptions.XOR, 0);
+        Encoder.decode(direct, EncodingOptions.XOR, 0);
+        direct.get(encoded);
+        assertEquals(message, new String(encoded, StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = ReadOnlyBufferException.class)
+    public void testReadOnlyBuffer() {
+        var buffer = ByteBuffer.wrap("message".getBytes(StandardCharsets.US_ASCII)).asReadOnlyBuffer();
+        Encoder.encode(buffer, EncodingOptions.XOR, 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRangeOutOfArray() {
+        Encoder.encode(new byte[4], 2, 3, EncodingOptions.CAESAR, 1);
+    }
 }
@@ -0,0 +1,85 @@
+package redes.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MappedPngTest {
+
+    private static Chunk chunkFromStrings(String chunkType, String data) {
+        return new Chunk(ChunkType.fromString(chunkType), data.getBytes());
+    }
+
+    private static byte[] testingPng() {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        chunks.add(chunkFromStrings("miDl", "I am another chunk"));
+        chunks.add(chunkFromStrings("IEND", ""));
+        return Png.fromChunks(chunks).asByteArray();
+    }
+
+    private static Path writeTemp(byte[] bytes) throws IOException {
+        var path = Files.createTempFile("mapped", ".png");
+        path.toFile().deleteOnExit();
+        return Files.write(path, bytes);
+    }
+
+    @Test
+    public void testLayout() throws IOException {
+        var png = MappedPng.open(writeTemp(testingPng()));
+        var layout = png.layout();
+
+        assertEquals(3, layout.size());
+        assertEquals(8, layout.get(0).getOffset());
+        assertEquals(18, layout.get(1).getLength());
+        assertEquals("IEND", layout.get(2).getChunkType().toString());
+        assertEquals(png.size(), layout.get(2).endOffset());
+    }
+
+    @Test
+    public void testChunkByType() throws IOException {
+        var png = MappedPng.open(writeTemp(testingPng()));
+
+        assertEquals("I am another chunk", png.chunkByType("miDl").get().toString());
+        assertFalse(png.chunkByType("reDe").isPresent());
+    }
+
+    @Test
+    public void testToPng() throws IOException {
+        var bytes = testingPng();
+        var png = MappedPng.open(writeTemp(bytes)).toPng();
+
+        assertArrayEquals(bytes, png.asByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHeader() throws IOException {
+        var bytes = testingPng();
+        bytes[1] = 0;
+        MappedPng.open(writeTemp(bytes));
+    }
+
+    @Test
+    public void testStrip() throws IOException {
+        var bytes = testingPng();
+        var hidden = chunkFromStrings("reDe", "Hidden").asByteArray();
+        var withHidden = Arrays.copyOf(bytes, bytes.length + hidden.length);
+        System.arraycopy(hidden, 0, withHidden, bytes.length, hidden.length);
+        var png = MappedPng.open(writeTemp(withHidden));
+
+        var stripped = png.strip(type -> type.is(ChunkType.HIDDEN_MESSAGE));
+        var chunks = Png.fromBytes(stripped.asByteArray()).getChunks();
+        assertEquals(2, chunks.size());
+        assertEquals("Hidden", chunks.get(0).toString());
+        assertEquals("IEND", chunks.get(1).getChunkType().toString());
+    }
+}
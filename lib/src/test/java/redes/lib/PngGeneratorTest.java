@@ -0,0 +1,104 @@
+package redes.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+public class PngGeneratorTest {
+
+    private static List<String> types(Png png) {
+        List<String> types = new ArrayList<>();
+        for (var chunk : png.getChunks()) {
+            types.add(chunk.getChunkType().toString());
+        }
+        return types;
+    }
+
+    @Test
+    public void testSameSeedSameBytes() {
+        var first = new PngGenerator(7).idatChunks(5, PngGenerator.Split.RANDOM).ancillaryChunks(4).generate();
+        var second = new PngGenerator(7).idatChunks(5, PngGenerator.Split.RANDOM).ancillaryChunks(4).generate();
+        var other = new PngGenerator(8).idatChunks(5, PngGenerator.Split.RANDOM).ancillaryChunks(4).generate();
+
+        assertArrayEquals(first.asByteArray(), second.asByteArray());
+        assertFalse(Arrays.equals(first.asByteArray(), other.asByteArray()));
+    }
+
+    @Test
+    public void testSizeAndLayout() {
+        var size = 300_000;
+        var png = new PngGenerator(1).size(size).idatChunks(7, PngGenerator.Split.EVEN).ancillaryChunks(3)
+                .hiddenChunks(2, PngGenerator.Placement.START).generate();
+        var bytes = png.asByteArray();
+
+        // Below the size by less than a row of pixels
+        assertTrue(bytes.length <= size);
+        assertTrue(bytes.length > size - 1100);
+
+        var types = types(Png.fromBytes(bytes));
+        assertEquals("IHDR", types.get(0));
+        assertEquals("reDe", types.get(1));
+        assertEquals("reDe", types.get(2));
+        assertEquals("IEND", types.get(types.size() - 1));
+        assertEquals(7, types.stream().filter("IDAT"::equals).count());
+        assertEquals(3, types.stream().filter("tEXt"::equals).count());
+        // The image data chunks are consecutive
+        assertEquals(6, types.lastIndexOf("IDAT") - types.indexOf("IDAT"));
+    }
+
+    @Test
+    public void testImageDataInflates() throws DataFormatException {
+        var png = new PngGenerator(2).size(100_000).idatChunks(9, PngGenerator.Split.RANDOM).generate();
+        var header = png.chunkByType("IHDR").get().getDataBuffer();
+        var width = header.getInt();
+        var height = header.getInt();
+
+        var inflater = new Inflater();
+        var data = new ByteArrayOutputStream();
+        for (var chunk : png.getChunks()) {
+            if (chunk.getChunkType().is("IDAT")) {
+                var buffer = chunk.getDataBuffer();
+                var bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                inflater.setInput(bytes);
+                var out = new byte[8192];
+                int read;
+                while ((read = inflater.inflate(out)) > 0) {
+                    data.write(out, 0, read);
+                }
+            }
+        }
+
+        assertTrue(inflater.finished());
+        assertEquals((long) height * (width + 1), data.size());
+    }
+
+    @Test
+    public void testHiddenMessage() {
+        var caesar = new PngGenerator(3).hiddenChunks(1, PngGenerator.Placement.MIDDLE)
+                .message("hello world", EncodingOptions.CAESAR, 5).generate();
+        var xor = new PngGenerator(3).message("hello world", EncodingOptions.XOR, 0).generate();
+
+        var data = caesar.chunkByType("reDe").get().asByteArray();
+        // Length, type, then the encryption byte
+        assertEquals(EncodingOptions.CAESAR.getValue() | 5 << 3, data[8]);
+        var types = types(caesar);
+        assertEquals(types.lastIndexOf("IDAT") + 1, types.indexOf("reDe"));
+
+        var message = xor.chunkByType("reDe").get().getDataBuffer();
+        assertEquals(EncodingOptions.XOR.getValue().byteValue(), message.get());
+        var encrypted = new byte[message.remaining()];
+        message.get(encrypted);
+        assertEquals("hello world", Encoder.decode(new String(encrypted), EncodingOptions.XOR));
+    }
+}
@@ -0,0 +1,72 @@
+package redes.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PngReaderTest {
+
+    private static Chunk chunkFromStrings(String chunkType, String data) {
+        return new Chunk(ChunkType.fromString(chunkType), data.getBytes());
+    }
+
+    private static byte[] testingPng() {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        chunks.add(chunkFromStrings("miDl", "I am another chunk"));
+        chunks.add(chunkFromStrings("IEND", ""));
+        return Png.fromChunks(chunks).asByteArray();
+    }
+
+    @Test
+    public void testReadChunks() throws IOException {
+        var reader = new PngReader(new ByteArrayInputStream(testingPng()));
+        List<Chunk> chunks = new ArrayList<>();
+        reader.forEachRemaining(chunks::add);
+
+        assertEquals(3, chunks.size());
+        assertEquals("FrSt", chunks.get(0).getChunkType().toString());
+        assertEquals("I am another chunk", chunks.get(1).toString());
+        assertEquals(testingPng().length, reader.getPosition());
+    }
+
+    @Test
+    public void testReadsChunksAfterIend() throws IOException {
+        var png = testingPng();
+        var hidden = chunkFromStrings("reDe", "Hidden").asByteArray();
+        var bytes = Arrays.copyOf(png, png.length + hidden.length);
+        System.arraycopy(hidden, 0, bytes, png.length, hidden.length);
+        var reader = new PngReader(new ByteArrayInputStream(bytes));
+        Chunk last = null;
+        Chunk chunk;
+        while ((chunk = reader.readChunk()) != null) {
+            last = chunk;
+        }
+
+        assertEquals("Hidden", last.toString());
+        assertNull(reader.readChunk());
+        assertEquals(bytes.length, reader.getPosition());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHeader() throws IOException {
+        var bytes = testingPng();
+        bytes[0] = 13;
+        new PngReader(new ByteArrayInputStream(bytes));
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedChunk() throws IOException {
+        var png = testingPng();
+        var bytes = Arrays.copyOf(png, 20);
+        new PngReader(new ByteArrayInputStream(bytes)).readChunk();
+    }
+}
@@ -0,0 +1,134 @@
+package redes.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PngScannerTest {
+
+    private static Chunk chunkFromStrings(String chunkType, String data) {
+        return new Chunk(ChunkType.fromString(chunkType), data.getBytes());
+    }
+
+    private static byte[] testingPng() {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        chunks.add(chunkFromStrings("reDe", "I am the hidden chunk"));
+        chunks.add(chunkFromStrings("miDl", "I am another chunk"));
+        chunks.add(chunkFromStrings("IEND", ""));
+        return Png.fromChunks(chunks).asByteArray();
+    }
+
+    private static byte[] corruptedPng() {
+        var bytes = testingPng();
+        // Flips a data byte of the skipped "FrSt" chunk
+        bytes[20] ^= 1;
+        return bytes;
+    }
+
+    @Test
+    public void testKeepsOnlyFilteredChunks() {
+        var bytes = testingPng();
+        var scanner = new PngScanner(type -> type.is("reDe"));
+        var input = ByteBuffer.wrap(bytes);
+
+        var chunk = scanner.next(input);
+        assertEquals("I am the hidden chunk", chunk.toString());
+        assertTrue(input.hasRemaining());
+
+        assertNull(scanner.next(input));
+        assertEquals(bytes.length, scanner.getPosition());
+        assertTrue(scanner.isAtChunkBoundary());
+    }
+
+    @Test
+    public void testFedByteByByte() {
+        var bytes = testingPng();
+        var scanner = new PngScanner(type -> !type.is("IEND"));
+        List<Chunk> chunks = new ArrayList<>();
+
+        for (var i = 0; i < bytes.length; i++) {
+            var chunk = scanner.next(ByteBuffer.wrap(bytes, i, 1));
+            if (chunk != null) {
+                chunks.add(chunk);
+            }
+            assertEquals(i + 1, scanner.getPosition());
+        }
+
+        assertEquals(3, chunks.size());
+        assertEquals("I am another chunk", chunks.get(2).toString());
+    }
+
+    @Test
+    public void testPartialChunk() {
+        var bytes = testingPng();
+        var scanner = new PngScanner(type -> true);
+
+        assertNull(scanner.next(ByteBuffer.wrap(bytes, 0, 20)));
+        assertFalse(scanner.isAtChunkBoundary());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHeader() {
+        var bytes = testingPng();
+        bytes[3] = 0;
+        new PngScanner(type -> true).next(ByteBuffer.wrap(bytes));
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testChecksSkippedChunks() {
+        var scanner = new PngScanner(type -> type.is("reDe"), CrcPolicy.STRICT);
+        var bytes = corruptedPng();
+
+        for (var i = 0; i < bytes.length; i++) {
+            scanner.next(ByteBuffer.wrap(bytes, i, 1));
+        }
+    }
+
+    @Test
+    public void testNonePolicySkipsCheck() {
+        var scanner = new PngScanner(type -> type.is("reDe"), CrcPolicy.NONE);
+
+        var chunk = scanner.next(ByteBuffer.wrap(corruptedPng()));
+        assertEquals("I am the hidden chunk", chunk.toString());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testRejectsChunkPastTheEnd() {
+        var bytes = testingPng();
+        var scanner = new PngScanner(type -> type.is("reDe"), CrcPolicy.STRICT, bytes.length - 1, 1024);
+        var input = ByteBuffer.wrap(bytes);
+
+        // The hidden chunk is fine, IEND ends a byte past the limit
+        assertEquals("I am the hidden chunk", scanner.next(input).toString());
+        scanner.next(input);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testRejectsLongKeptChunk() {
+        var bytes = testingPng();
+        // Claims a 2 GB hidden message chunk, announced right after the first chunk
+        var hidden = Png.signature().length + Chunk.OVERHEAD + "I am the first chunk".length();
+        ByteBuffer.wrap(bytes).putInt(hidden, Integer.MAX_VALUE);
+        var scanner = new PngScanner(type -> type.is("reDe"), CrcPolicy.STRICT, Long.MAX_VALUE, 1024);
+
+        scanner.next(ByteBuffer.wrap(bytes));
+    }
+
+    @Test
+    public void testKeepsChunkWithinLimits() {
+        var bytes = testingPng();
+        var scanner = new PngScanner(type -> type.is("reDe"), CrcPolicy.STRICT, bytes.length,
+                "I am the hidden chunk".length());
+
+        assertEquals("I am the hidden chunk", scanner.next(ByteBuffer.wrap(bytes)).toString());
+    }
+}
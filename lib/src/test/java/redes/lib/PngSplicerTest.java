@@ -0,0 +1,128 @@
+package redes.lib;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PngSplicerTest {
+
+    private static Chunk chunkFromStrings(String chunkType, String data) {
+        return new Chunk(ChunkType.fromString(chunkType), data.getBytes());
+    }
+
+    private static Path tempFile() throws IOException {
+        var path = Files.createTempFile("splice", ".png");
+        path.toFile().deleteOnExit();
+        return path;
+    }
+
+    @Test
+    public void testSpliceBeforeIend() throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        chunks.add(chunkFromStrings("IEND", ""));
+        var source = Files.write(tempFile(), Png.fromChunks(chunks).asByteArray());
+        var target = tempFile();
+
+        PngSplicer.splice(source, target, chunkFromStrings("reDe", "Hidden"));
+
+        var png = Png.fromBytes(Files.readAllBytes(target));
+        assertEquals(3, png.getChunks().size());
+        assertEquals("Hidden", png.getChunks().get(1).toString());
+        assertEquals("IEND", png.getChunks().get(2).getChunkType().toString());
+    }
+
+    private static Path hiddenImage(String message) throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        chunks.add(chunkFromStrings("reDe", message));
+        chunks.add(chunkFromStrings("IEND", ""));
+        return Files.write(tempFile(), Png.fromChunks(chunks).asByteArray());
+    }
+
+    private static void assertUpdated(Path image, String message) throws IOException {
+        var png = Png.fromBytes(Files.readAllBytes(image));
+        assertEquals(3, png.getChunks().size());
+        assertEquals(message, png.chunkByType("reDe").get().toString());
+        assertEquals("IEND", png.getChunks().get(2).getChunkType().toString());
+    }
+
+    @Test
+    public void testUpdateSameSize() throws IOException {
+        var image = hiddenImage("Hidden");
+        PngSplicer.update(image, chunkFromStrings("reDe", "Secret"));
+        assertUpdated(image, "Secret");
+    }
+
+    @Test
+    public void testUpdateSmaller() throws IOException {
+        var image = hiddenImage("Hidden message");
+        PngSplicer.update(image, chunkFromStrings("reDe", "Short"));
+        assertUpdated(image, "Short");
+    }
+
+    @Test
+    public void testUpdateLarger() throws IOException {
+        var image = hiddenImage("Short");
+        PngSplicer.update(image, chunkFromStrings("reDe", "A much longer hidden message"));
+        assertUpdated(image, "A much longer hidden message");
+    }
+
+    @Test
+    public void testUpdateInsertsMissingChunk() throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        chunks.add(chunkFromStrings("IEND", ""));
+        var image = Files.write(tempFile(), Png.fromChunks(chunks).asByteArray());
+
+        PngSplicer.update(image, chunkFromStrings("reDe", "Hidden"));
+        assertUpdated(image, "Hidden");
+    }
+
+    @Test
+    public void testUpdateRemovesChunkAfterIend() throws IOException {
+        // Older clients appended the hidden message after IEND
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        chunks.add(chunkFromStrings("IEND", ""));
+        chunks.add(chunkFromStrings("reDe", "Old message"));
+        var image = Files.write(tempFile(), Png.fromChunks(chunks).asByteArray());
+
+        PngSplicer.update(image, chunkFromStrings("reDe", "Hidden"));
+        assertUpdated(image, "Hidden");
+    }
+
+    @Test
+    public void testUpdateKeepsOtherChunksAfterIend() throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        chunks.add(chunkFromStrings("reDe", "Hidden"));
+        chunks.add(chunkFromStrings("IEND", ""));
+        chunks.add(chunkFromStrings("reDe", "Old message"));
+        chunks.add(chunkFromStrings("LaSt", "I am the last chunk"));
+        var image = Files.write(tempFile(), Png.fromChunks(chunks).asByteArray());
+
+        PngSplicer.update(image, chunkFromStrings("reDe", "Secret"));
+
+        var png = Png.fromBytes(Files.readAllBytes(image));
+        assertEquals(4, png.getChunks().size());
+        assertEquals("Secret", png.getChunks().get(1).toString());
+        assertEquals("IEND", png.getChunks().get(2).getChunkType().toString());
+        assertEquals("I am the last chunk", png.getChunks().get(3).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSpliceWithoutIend() throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        chunks.add(chunkFromStrings("FrSt", "I am the first chunk"));
+        var source = Files.write(tempFile(), Png.fromChunks(chunks).asByteArray());
+
+        PngSplicer.splice(source, tempFile(), chunkFromStrings("reDe", "Hidden"));
+    }
+}
@@ -1,11 +1,14 @@
 package redes.lib;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.junit.Test;
 
 import one.util.streamex.IntStreamEx;
@@ -125,6 +128,22 @@ public class PngTest {
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testPngAsByteArray() {
+        var expected = ArrayUtils.toPrimitive(getPNG().toArray(new Byte[0]));
+        var png = Png.fromBytes(expected);
+        assertArrayEquals(expected, png.asByteArray());
+    }
+
+    @Test
+    public void testPngFromBufferIsView() {
+        var bytes = ArrayUtils.toPrimitive(getPNG().toArray(new Byte[0]));
+        var png = Png.fromBuffer(ByteBuffer.wrap(bytes));
+        var chunk = png.chunkByType("RuSt").get();
+        bytes[bytes.length - 19] = 'H';
+        assertEquals("Hey", chunk.toString());
+    }
+
     private static int[] PNG = { 137, 80, 78, 71, 13, 10, 26, 10, 0, 0, 0, 13, 73, 72, 68, 82, 0, 0, 0, 50, 0, 0, 0, 50,
             8, 6, 0, 0, 0, 30, 63, 136, 177, 0, 0, 0, 1, 115, 82, 71, 66, 0, 174, 206, 28, 233, 0, 0, 0, 4, 103, 65, 77,
             65, 0, 0, 177, 143, 11, 252, 97, 5, 0, 0, 0, 9, 112, 72, 89, 115, 0, 0, 14, 194, 0, 0, 14, 194, 1, 21, 40,
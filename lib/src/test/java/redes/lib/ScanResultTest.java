@@ -0,0 +1,42 @@
+package redes.lib;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidParameterException;
+
+import org.junit.Test;
+
+public class ScanResultTest {
+
+    @Test
+    public void testFrameRoundTrip() throws IOException {
+        var data = "two\nlines".getBytes(StandardCharsets.UTF_8);
+        var result = new ScanResult(42, ScanResult.Status.HIDDEN, 1500, 300, data);
+        var bytes = result.toFrame().asByteBuffer();
+
+        var input = new DataInputStream(new ByteArrayInputStream(bytes.array()));
+        var frame = Frame.read(input);
+        assertEquals(Frame.RESULT, frame.getType());
+        assertEquals(result, ScanResult.fromFrame(frame));
+        assertEquals("two\nlines", ScanResult.fromFrame(frame).dataAsString());
+    }
+
+    @Test
+    public void testByeFrame() throws IOException {
+        var bytes = Frame.of(Frame.BYE).asByteBuffer();
+        assertEquals(Frame.HEADER_LENGTH, bytes.remaining());
+
+        var frame = Frame.read(new DataInputStream(new ByteArrayInputStream(bytes.array())));
+        assertEquals(Frame.BYE, frame.getType());
+        assertEquals(0, frame.getPayload().remaining());
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void testNotAResult() {
+        ScanResult.fromFrame(Frame.of(Frame.BYE));
+    }
+}
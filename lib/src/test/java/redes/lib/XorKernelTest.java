@@ -0,0 +1,76 @@
+package redes.lib;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class XorKernelTest {
+
+    private static final byte[] KEY = "projetoRedes".getBytes(StandardCharsets.US_ASCII);
+
+    private static List<XorKernel> kernels() {
+        List<XorKernel> kernels = new ArrayList<>();
+        kernels.add(XorKernel.scalar(KEY));
+        kernels.add(XorKernel.longs(KEY));
+        var vector = XorKernel.vector(KEY);
+        if (vector != null) {
+            kernels.add(vector);
+        }
+        return kernels;
+    }
+
+    @Test
+    public void testMatchesBytewiseXor() {
+        var random = new Random(25);
+        for (var kernel : kernels()) {
+            // Lengths around the word and key lengths, and ranges not aligned to them
+            for (var length = 0; length < 300; length++) {
+                var from = random.nextInt(17);
+                var data = new byte[from + length + 5];
+                random.nextBytes(data);
+                var expected = data.clone();
+                for (var i = 0; i < length; i++) {
+                    expected[from + i] ^= KEY[i % KEY.length];
+                }
+
+                kernel.apply(data, from, length);
+                assertArrayEquals(kernel + " length " + length, expected, data);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeRangeRoundTrip() {
+        var data = new byte[3 * 1024 * 1024 + 7];
+        new Random(7).nextBytes(data);
+        var original = data.clone();
+        var kernels = kernels();
+        var scalar = data.clone();
+        kernels.get(0).apply(scalar, 1, data.length - 1);
+
+        for (var kernel : kernels) {
+            kernel.apply(data, 1, data.length - 1);
+            assertArrayEquals(kernel.toString(), scalar, data);
+            kernel.apply(data, 1, data.length - 1);
+            assertArrayEquals(kernel.toString(), original, data);
+        }
+    }
+
+    @Test
+    public void testBestIsWidest() {
+        var best = XorKernel.best(KEY);
+        var kernels = kernels();
+        assertEquals(kernels.get(kernels.size() - 1).getWordLength(), best.getWordLength());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyKey() {
+        XorKernel.longs(new byte[0]);
+    }
+}
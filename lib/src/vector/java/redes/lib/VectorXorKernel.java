@@ -0,0 +1,43 @@
+package redes.lib;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * XORs the lanes of the preferred byte vector at a time, through the Vector API
+ * <p>
+ * Only compiled when the JDK has the {@code jdk.incubator.vector} module, and
+ * only loaded by {@link XorKernel#vector(byte[])} when the JVM runs with it
+ */
+final class VectorXorKernel extends XorKernel {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    VectorXorKernel(byte[] key) {
+        super(key, SPECIES.length());
+    }
+
+    @Override
+    public void apply(byte[] data, int from, int length) {
+        var end = from + length;
+        var lanes = SPECIES.length();
+        var step = step();
+        var position = 0;
+        var i = from;
+        for (; i <= end - lanes; i += lanes) {
+            ByteVector.fromArray(SPECIES, data, i)
+                    .lanewise(VectorOperators.XOR, ByteVector.fromArray(SPECIES, stream, position))
+                    .intoArray(data, i);
+            position += step;
+            if (position >= key.length) {
+                position -= key.length;
+            }
+        }
+        tail(data, i, end, position);
+    }
+
+    @Override
+    public int getWordLength() {
+        return SPECIES.length();
+    }
+}
@@ -0,0 +1,126 @@
+package redes.load;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * What a virtual client saw during the test. Each client owns its stats, so
+ * nothing is shared until the report merges them
+ */
+@Getter
+public class ClientStats {
+
+    /**
+     * Exchanges answered with a scan result
+     */
+    private long completed;
+
+    /**
+     * Exchanges answered with "Invalid image"
+     */
+    private long invalid;
+
+    /**
+     * Connections turned away with "Too many connections"
+     */
+    private long rejected;
+
+    /**
+     * Connections sent away after waiting too long in the server queue
+     */
+    private long queueTimeouts;
+
+    /**
+     * Connections queued by the server before being served
+     */
+    private long queued;
+
+    /**
+     * Exchanges which ended with an I/O error
+     */
+    private long errors;
+
+    /**
+     * Image bytes sent in answered exchanges
+     */
+    private long bytesSent;
+
+    /**
+     * Latency of each answered exchange, in nanoseconds, from the connection to
+     * the "bye"
+     */
+    private long[] latencies = new long[1024];
+
+    /**
+     * Number of latencies recorded
+     */
+    private int latencyCount;
+
+    /**
+     * Records an exchange answered by the server
+     *
+     * @param valid     Whether the image was scanned, or found invalid
+     * @param bytes     The image bytes sent
+     * @param latencyNs How long the exchange took
+     */
+    void answered(boolean valid, long bytes, long latencyNs) {
+        if (valid) {
+            completed++;
+        } else {
+            invalid++;
+        }
+        bytesSent += bytes;
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencyCount * 2);
+        }
+        latencies[latencyCount++] = latencyNs;
+    }
+
+    void rejected() {
+        rejected++;
+    }
+
+    void queueTimedOut() {
+        queueTimeouts++;
+    }
+
+    void queued() {
+        queued++;
+    }
+
+    void failed() {
+        errors++;
+    }
+
+    /**
+     * Adds the stats of another client to these
+     *
+     * @param other The stats to add
+     */
+    void merge(ClientStats other) {
+        completed += other.completed;
+        invalid += other.invalid;
+        rejected += other.rejected;
+        queueTimeouts += other.queueTimeouts;
+        queued += other.queued;
+        errors += other.errors;
+        bytesSent += other.bytesSent;
+        if (latencyCount + other.latencyCount > latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencyCount + other.latencyCount);
+        }
+        System.arraycopy(other.latencies, 0, latencies, latencyCount, other.latencyCount);
+        latencyCount += other.latencyCount;
+    }
+
+    /**
+     * Returns the recorded latencies, sorted
+     *
+     * @return A copy of the latencies, in nanoseconds
+     */
+    long[] sortedLatencies() {
+        var sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,197 @@
+package redes.load;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import redes.lib.EncodingOptions;
+import redes.lib.PngGenerator;
+
+/**
+ * Writes a corpus of synthetic images to feed the load tests and benchmarks
+ * <p>
+ * Image {@code i} is generated with the seed plus {@code i}, so the same
+ * options always write the same files
+ *
+ * @apiNote Error codes
+ *          <ul>
+ *          <li>1 - Wrong usage / Insufficient arguments</li>
+ *          <li>2 - Unsupported arguments</li>
+ *          </ul>
+ */
+public class Corpus {
+
+    /**
+     * Corpus CLI options
+     */
+    static final Options options = createCLIOptions();
+    /**
+     * CLI parser
+     */
+    static final CommandLineParser parser = new DefaultParser();
+    /**
+     * Default separator
+     */
+    static final char DEFAULT_VALUE_SEPARATOR = ' ';
+    /**
+     * Default number of images
+     */
+    static final int DEFAULT_COUNT = 16;
+    /**
+     * Default image size, in bytes
+     */
+    static final long DEFAULT_SIZE = 64 * 1024;
+    /**
+     * Default offset to be used with the {@code CAESAR} encryption
+     */
+    static final int DEFAULT_CAESAR_OFFSET = 13;
+    /**
+     * Default seed of the first image
+     */
+    static final long DEFAULT_SEED = 6868;
+
+    /**
+     * Corpus generator entry point
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            printHelp();
+            System.exit(1);
+        }
+        try {
+            CommandLine line = parser.parse(options, args);
+            if (line.hasOption("h")) {
+                printHelp();
+                System.exit(0);
+            }
+            write(line);
+        } catch (ParseException ex) {
+            System.err.println("Parsing failed. Reason: " + ex.getMessage());
+            printHelp();
+            System.exit(1);
+        } catch (IllegalArgumentException ex) {
+            System.err.println("Illegal Argument Error: " + ex.getMessage());
+            System.exit(2);
+        } catch (IOException ex) {
+            System.err.println("I/O Error: " + ex.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes the images described by the options
+     *
+     * @param line {@code CLI} object to extract the {@code CLI} options from
+     * @throws IOException              If an image could not be written
+     * @throws IllegalArgumentException If an option value is not valid
+     */
+    private static void write(CommandLine line) throws IOException, IllegalArgumentException {
+        if (!line.hasOption("o")) {
+            throw new IllegalArgumentException("Please provide the directory to write the images to");
+        }
+        var directory = Files.createDirectories(Paths.get(line.getOptionValue("o")));
+        var count = Integer.parseInt(line.getOptionValue("n", String.valueOf(DEFAULT_COUNT)));
+        var size = Long.parseLong(line.getOptionValue("S", String.valueOf(DEFAULT_SIZE)));
+        var idatChunks = Integer.parseInt(line.getOptionValue("i", "1"));
+        var split = PngGenerator.Split.getEnum(line.getOptionValue("x", PngGenerator.Split.EVEN.name()));
+        var ancillaryChunks = Integer.parseInt(line.getOptionValue("a", "0"));
+        var hiddenChunks = Integer.parseInt(line.getOptionValue("H", "1"));
+        var placement = PngGenerator.Placement.getEnum(line.getOptionValue("P", PngGenerator.Placement.END.name()));
+        var encoding = EncodingOptions.getEnum(line.getOptionValue("e", EncodingOptions.CAESAR.name()));
+        // Wraps the offset to the 0-26 range, as the client does
+        var offset = Integer.parseInt(line.getOptionValue("O", String.valueOf(DEFAULT_CAESAR_OFFSET))) % 26;
+        var seed = Long.parseLong(line.getOptionValue("s", String.valueOf(DEFAULT_SEED)));
+
+        for (var i = 0; i < count; i++) {
+            var png = new PngGenerator(seed + i).size(size).idatChunks(idatChunks, split)
+                    .ancillaryChunks(ancillaryChunks).hiddenChunks(hiddenChunks, placement)
+                    .message(line.getOptionValue("m"), encoding, offset).generate();
+            var path = directory.resolve(String.format("synthetic_%04d.png", i));
+            try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                png.writeTo(channel);
+            }
+        }
+        System.out.println("Wrote " + count + " images to " + directory);
+    }
+
+    /**
+     * Creates the accepted CLI options
+     *
+     * @return The CLI {@code Options} object
+     */
+    private static Options createCLIOptions() {
+        var options = new Options();
+
+        Option output = Option.builder("o").hasArg().argName("directory")
+                .desc("The directory the images are written to").longOpt("output")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option count = Option.builder("n").hasArg().argName("count")
+                .desc("Defines the number of images. Defaults to " + DEFAULT_COUNT).longOpt("count")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option size = Option.builder("S").hasArg().argName("bytes")
+                .desc("Defines the size of each image. Defaults to " + DEFAULT_SIZE).longOpt("size")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option idatChunks = Option.builder("i").hasArg().argName("count")
+                .desc("Defines the number of IDAT chunks the image data is split in. Defaults to 1")
+                .longOpt("idat-chunks").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option split = Option.builder("x").hasArg().argName("split")
+                .desc("Defines how the image data is split: even or random. Defaults to even").longOpt("split")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option ancillaryChunks = Option.builder("a").hasArg().argName("count")
+                .desc("Defines the number of tEXt chunks around the image data. Defaults to 0")
+                .longOpt("ancillary-chunks").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option hiddenChunks = Option.builder("H").hasArg().argName("count")
+                .desc("Defines the number of hidden message chunks. Defaults to 1").longOpt("hidden-chunks")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option placement = Option.builder("P").hasArg().argName("placement")
+                .desc("Defines where the hidden message chunks are: start, middle or end. Defaults to end")
+                .longOpt("placement").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option message = Option.builder("m").hasArg().argName("message")
+                .desc("The hidden message. Defaults to random lower case words").longOpt("message")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option encryption = Option.builder("e").hasArg().argName("encryption")
+                .desc("Defines the encryption of the hidden message. Defaults to CAESAR").longOpt("encryption")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option offset = Option.builder("O").hasArg().argName("offset")
+                .desc("Defines the offset of the CAESAR encryption option. Defaults to " + DEFAULT_CAESAR_OFFSET)
+                .longOpt("offset").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option seed = Option.builder("s").hasArg().argName("seed")
+                .desc("Defines the seed of the first image. Defaults to " + DEFAULT_SEED).longOpt("seed")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option help = Option.builder("h").desc("Prints this message").longOpt("help").build();
+
+        options.addOption(output);
+        options.addOption(count);
+        options.addOption(size);
+        options.addOption(idatChunks);
+        options.addOption(split);
+        options.addOption(ancillaryChunks);
+        options.addOption(hiddenChunks);
+        options.addOption(placement);
+        options.addOption(message);
+        options.addOption(encryption);
+        options.addOption(offset);
+        options.addOption(seed);
+        options.addOption(help);
+        return options;
+    }
+
+    /**
+     * Prints the command-line interface help message
+     */
+    private static void printHelp() {
+        var formatter = new HelpFormatter();
+        formatter.printHelp("corpus", options);
+    }
+}
@@ -0,0 +1,91 @@
+package redes.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The images sent by the clients, each one picked as often as its weight says
+ * <p>
+ * The images are read once, so the clients measure the server rather than the
+ * disk
+ */
+public class ImageMix {
+
+    /**
+     * An image of the mix
+     */
+    static class Image {
+        final String name;
+        final byte[] bytes;
+
+        Image(String name, byte[] bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+    }
+
+    private final List<Image> images = new ArrayList<>();
+
+    /**
+     * Sum of the weights of the images up to each one
+     */
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+
+    private int totalWeight;
+
+    /**
+     * Reads the images of the mix
+     *
+     * @param specs The image paths, each one optionally followed by
+     *              {@code :weight}, the weight defaulting to 1
+     * @return The mix
+     * @throws IOException              If an image could not be read
+     * @throws IllegalArgumentException If a weight is not a positive integer
+     */
+    public static ImageMix of(String[] specs) throws IOException, IllegalArgumentException {
+        var mix = new ImageMix();
+        for (var spec : specs) {
+            var separator = spec.lastIndexOf(':');
+            var weight = 1;
+            var pathString = spec;
+            // Keeps Windows drive letters, as in C:\image.png, in the path
+            if (separator > 1) {
+                weight = Integer.parseInt(spec.substring(separator + 1));
+                pathString = spec.substring(0, separator);
+            }
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Image weight must be at least 1: " + spec);
+            }
+            Path path = Paths.get(pathString);
+            mix.add(new Image(path.getFileName().toString(), Files.readAllBytes(path)), weight);
+        }
+        return mix;
+    }
+
+    private void add(Image image, int weight) {
+        totalWeight += weight;
+        images.add(image);
+        cumulativeWeights.add(totalWeight);
+    }
+
+    /**
+     * Picks an image at random, following the weights
+     *
+     * @param random The source of randomness of the calling client
+     * @return The image
+     */
+    Image pick(Random random) {
+        var target = random.nextInt(totalWeight);
+        for (var i = 0; i < images.size(); i++) {
+            if (target < cumulativeWeights.get(i)) {
+                return images.get(i);
+            }
+        }
+        return images.get(images.size() - 1);
+    }
+}
@@ -0,0 +1,155 @@
+package redes.load;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The merged stats of a test run, rendered as text, JSON or CSV
+ */
+public class LoadReport {
+
+    /**
+     * The percentiles of the latency reported
+     */
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
+    private final int clients;
+    private final double elapsedSeconds;
+    private final ClientStats total = new ClientStats();
+    private final long[] latencies;
+
+    /**
+     * Creates the report of a run
+     *
+     * @param stats     The stats of every client
+     * @param elapsedNs How long the run took, ramp-up included
+     */
+    public LoadReport(List<ClientStats> stats, long elapsedNs) {
+        this.clients = stats.size();
+        this.elapsedSeconds = elapsedNs / 1e9;
+        for (var clientStats : stats) {
+            total.merge(clientStats);
+        }
+        this.latencies = total.sortedLatencies();
+    }
+
+    /**
+     * Returns the answered exchanges per second
+     *
+     * @return The request rate
+     */
+    public double getRequestsPerSecond() {
+        return latencies.length / elapsedSeconds;
+    }
+
+    /**
+     * Returns the image bytes sent per second in answered exchanges
+     *
+     * @return The byte rate
+     */
+    public double getBytesPerSecond() {
+        return total.getBytesSent() / elapsedSeconds;
+    }
+
+    /**
+     * Returns a latency percentile with the nearest rank method
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The latency in milliseconds, 0 if nothing was answered
+     */
+    public double latencyMillis(double percentile) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        var rank = (int) Math.ceil(percentile / 100 * latencies.length);
+        return latencies[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    /**
+     * Returns the mean latency
+     *
+     * @return The latency in milliseconds, 0 if nothing was answered
+     */
+    public double meanLatencyMillis() {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        var sum = 0.0;
+        for (var latency : latencies) {
+            sum += latency;
+        }
+        return sum / latencies.length / 1e6;
+    }
+
+    /**
+     * Renders the report in the given format
+     *
+     * @param format The output format
+     * @return The report
+     */
+    public String render(ReportFormat format) {
+        switch (format) {
+        case JSON:
+            return toJson();
+        case CSV:
+            return toCsv();
+        default:
+            return toText();
+        }
+    }
+
+    private String toText() {
+        var text = new StringBuilder();
+        text.append(format("Clients:         %d, for %.1f s%n", clients, elapsedSeconds));
+        text.append(format("Requests:        %d answered, %d invalid images%n", latencies.length, total.getInvalid()));
+        text.append(format("Throughput:      %.1f req/s, %.1f KiB/s%n", getRequestsPerSecond(),
+                getBytesPerSecond() / 1024));
+        text.append(format("Latency (ms):    p50 %.2f, p90 %.2f, p99 %.2f, max %.2f, mean %.2f%n", latencyMillis(50),
+                latencyMillis(90), latencyMillis(99), latencyMillis(100), meanLatencyMillis()));
+        text.append(format("Rejected:        %d (too many connections), %d (timed out in queue)%n",
+                total.getRejected(), total.getQueueTimeouts()));
+        text.append(format("Queued:          %d%n", total.getQueued()));
+        text.append(format("Errors:          %d%n", total.getErrors()));
+        return text.toString();
+    }
+
+    private String toJson() {
+        var json = new StringBuilder("{");
+        json.append(format("\"clients\":%d,\"elapsedSeconds\":%.3f,", clients, elapsedSeconds));
+        json.append(format("\"requests\":%d,\"completed\":%d,\"invalid\":%d,", latencies.length,
+                total.getCompleted(), total.getInvalid()));
+        json.append(format("\"rejected\":%d,\"queueTimeouts\":%d,\"queued\":%d,\"errors\":%d,", total.getRejected(),
+                total.getQueueTimeouts(), total.getQueued(), total.getErrors()));
+        json.append(format("\"bytesSent\":%d,\"requestsPerSecond\":%.3f,\"bytesPerSecond\":%.3f,",
+                total.getBytesSent(), getRequestsPerSecond(), getBytesPerSecond()));
+        json.append("\"latencyMillis\":{");
+        for (var percentile : PERCENTILES) {
+            json.append(format("\"p%d\":%.3f,", (int) percentile, latencyMillis(percentile)));
+        }
+        json.append(format("\"max\":%.3f,\"mean\":%.3f}}%n", latencyMillis(100), meanLatencyMillis()));
+        return json.toString();
+    }
+
+    private String toCsv() {
+        var header = new StringBuilder("clients,elapsed_s,requests,completed,invalid,rejected,queue_timeouts,queued,"
+                + "errors,bytes_sent,requests_per_s,bytes_per_s");
+        var row = new StringBuilder(format("%d,%.3f,%d,%d,%d,%d,%d,%d,%d,%d,%.3f,%.3f", clients, elapsedSeconds,
+                latencies.length, total.getCompleted(), total.getInvalid(), total.getRejected(),
+                total.getQueueTimeouts(), total.getQueued(), total.getErrors(), total.getBytesSent(),
+                getRequestsPerSecond(), getBytesPerSecond()));
+        for (var percentile : PERCENTILES) {
+            header.append(format(",latency_p%d_ms", (int) percentile));
+            row.append(format(",%.3f", latencyMillis(percentile)));
+        }
+        header.append(",latency_max_ms,latency_mean_ms");
+        row.append(format(",%.3f,%.3f", latencyMillis(100), meanLatencyMillis()));
+        return header + System.lineSeparator() + row + System.lineSeparator();
+    }
+
+    /**
+     * Formats without the default locale, so decimals always use a dot
+     */
+    private static String format(String pattern, Object... args) {
+        return String.format(Locale.ROOT, pattern, args);
+    }
+}
@@ -0,0 +1,246 @@
+package redes.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * Runs many virtual clients against a server and reports the throughput, the
+ * latency and the rejections they saw
+ * <p>
+ * Client {@code i} of {@code n} starts {@code i * ramp-up / n} seconds after the
+ * test, and every client stops sending once the test duration, ramp-up
+ * included, is over
+ *
+ * @apiNote Error codes
+ *          <ul>
+ *          <li>1 - Wrong usage / Insufficient arguments</li>
+ *          <li>2 - Unsupported arguments</li>
+ *          </ul>
+ */
+public class LoadTest {
+
+    /**
+     * Load test CLI options
+     */
+    static final Options options = createCLIOptions();
+    /**
+     * CLI parser
+     */
+    static final CommandLineParser parser = new DefaultParser();
+    /**
+     * Default separator
+     */
+    static final char DEFAULT_VALUE_SEPARATOR = ' ';
+    /**
+     * Default server host
+     */
+    static final String DEFAULT_HOST = "localhost";
+    /**
+     * Default server port
+     */
+    static final int DEFAULT_PORT = 6868;
+    /**
+     * Default number of virtual clients
+     */
+    static final int DEFAULT_CLIENTS = 16;
+    /**
+     * Default time for all the clients to start, in seconds
+     */
+    static final int DEFAULT_RAMP_UP = 0;
+    /**
+     * Default test duration, in seconds
+     */
+    static final int DEFAULT_DURATION = 10;
+    /**
+     * Default socket timeout, in milliseconds
+     */
+    static final int DEFAULT_TIMEOUT = 30000;
+    /**
+     * Default seed of the image picks
+     */
+    static final long DEFAULT_SEED = 6868;
+
+    /**
+     * Load test entry point
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            printHelp();
+            System.exit(1);
+        }
+        try {
+            CommandLine line = parser.parse(options, args);
+            if (line.hasOption("h")) {
+                printHelp();
+                System.exit(0);
+            }
+            run(line);
+        } catch (ParseException ex) {
+            System.err.println("Parsing failed. Reason: " + ex.getMessage());
+            printHelp();
+            System.exit(1);
+        } catch (IllegalArgumentException ex) {
+            System.err.println("Illegal Argument Error: " + ex.getMessage());
+            System.exit(2);
+        } catch (IOException ex) {
+            System.err.println("I/O Error: " + ex.getMessage());
+            System.exit(1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the test described by the options and writes its report
+     *
+     * @param line {@code CLI} object to extract the {@code CLI} options from
+     * @throws IOException              If an image could not be read or the report
+     *                                  could not be written
+     * @throws IllegalArgumentException If an option value is not valid
+     * @throws InterruptedException     If interrupted while waiting for the clients
+     */
+    private static void run(CommandLine line) throws IOException, IllegalArgumentException, InterruptedException {
+        if (!line.hasOption("i")) {
+            throw new IllegalArgumentException("Please provide the images to send");
+        }
+        var mix = ImageMix.of(line.getOptionValues("i"));
+        var host = line.getOptionValue("s", DEFAULT_HOST);
+        var port = intOption(line, "p", DEFAULT_PORT, 1);
+        var clients = intOption(line, "n", DEFAULT_CLIENTS, 1);
+        var rampUp = intOption(line, "r", DEFAULT_RAMP_UP, 0);
+        var duration = intOption(line, "d", DEFAULT_DURATION, 1);
+        var timeout = intOption(line, "t", DEFAULT_TIMEOUT, 1);
+        var format = ReportFormat.getEnum(line.getOptionValue("o", ReportFormat.TEXT.name()));
+        var seed = line.hasOption("S") ? Long.parseLong(line.getOptionValue("S")) : DEFAULT_SEED;
+        if (rampUp >= duration) {
+            throw new IllegalArgumentException("The ramp-up must be shorter than the duration");
+        }
+
+        var address = new InetSocketAddress(host, port);
+        var start = System.nanoTime();
+        var end = start + TimeUnit.SECONDS.toNanos(duration);
+        var rampUpNs = TimeUnit.SECONDS.toNanos(rampUp);
+        List<VirtualClient> virtualClients = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (var i = 0; i < clients; i++) {
+            var client = new VirtualClient(address, mix, seed + i, timeout, start + rampUpNs * i / clients, end);
+            var thread = new Thread(client, "client-" + i);
+            virtualClients.add(client);
+            threads.add(thread);
+            thread.start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        var elapsed = System.nanoTime() - start;
+
+        List<ClientStats> stats = new ArrayList<>();
+        for (var client : virtualClients) {
+            stats.add(client.getStats());
+        }
+        var report = new LoadReport(stats, elapsed).render(format);
+        if (line.hasOption("f")) {
+            Files.writeString(Paths.get(line.getOptionValue("f")), report);
+        } else {
+            System.out.print(report);
+        }
+    }
+
+    /**
+     * Gets an integer option
+     *
+     * @param line         {@code CLI} object to extract the option from
+     * @param option       The option name
+     * @param defaultValue The value used if the option is not given
+     * @param min          The smallest accepted value
+     * @return The option value
+     * @throws IllegalArgumentException If the value is not an integer or is too
+     *                                  small
+     */
+    private static int intOption(CommandLine line, String option, int defaultValue, int min)
+            throws IllegalArgumentException {
+        if (!line.hasOption(option)) {
+            return defaultValue;
+        }
+        var value = Integer.parseInt(line.getOptionValue(option));
+        if (value < min) {
+            throw new IllegalArgumentException("Option " + option + " must be at least " + min + ": " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Creates the accepted CLI options
+     *
+     * @return The CLI {@code Options} object
+     */
+    private static Options createCLIOptions() {
+        var options = new Options();
+
+        Option images = Option.builder("i").hasArgs().argName("image-path[:weight]")
+                .desc("The images sent by the clients, each one picked in proportion to its weight. Weights default to 1")
+                .longOpt("images").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option clients = Option.builder("n").hasArg().argName("clients")
+                .desc("Defines the number of concurrent clients. Defaults to " + DEFAULT_CLIENTS).longOpt("clients")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option rampUp = Option.builder("r").hasArg().argName("seconds")
+                .desc("Defines the time taken to start all the clients. Defaults to " + DEFAULT_RAMP_UP)
+                .longOpt("ramp-up").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option duration = Option.builder("d").hasArg().argName("seconds")
+                .desc("Defines the test duration, ramp-up included. Defaults to " + DEFAULT_DURATION)
+                .longOpt("duration").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option timeout = Option.builder("t").hasArg().argName("milliseconds")
+                .desc("Defines the connect and read timeout of the clients. Defaults to " + DEFAULT_TIMEOUT)
+                .longOpt("timeout").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option seed = Option.builder("S").hasArg().argName("seed")
+                .desc("Defines the seed of the image picks, so runs can be repeated. Defaults to " + DEFAULT_SEED)
+                .longOpt("seed").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option format = Option.builder("o").hasArg().argName("format")
+                .desc("Defines the report format: text, json or csv. Defaults to text").longOpt("output-format")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option file = Option.builder("f").hasArg().argName("path")
+                .desc("Writes the report to the given file instead of the standard output").longOpt("output-file")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option host = Option.builder("s").hasArg().argName("host")
+                .desc("Defines the host of the tested server. Defaults to " + DEFAULT_HOST).longOpt("server-host")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option port = Option.builder("p").hasArg().argName("port")
+                .desc("Defines the port of the tested server. Defaults to " + DEFAULT_PORT).longOpt("port")
+                .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option help = Option.builder("h").desc("Prints this message").longOpt("help").build();
+
+        options.addOption(images);
+        options.addOption(clients);
+        options.addOption(rampUp);
+        options.addOption(duration);
+        options.addOption(timeout);
+        options.addOption(seed);
+        options.addOption(format);
+        options.addOption(file);
+        options.addOption(host);
+        options.addOption(port);
+        options.addOption(help);
+        return options;
+    }
+
+    /**
+     * Prints the command-line interface help message
+     */
+    private static void printHelp() {
+        var formatter = new HelpFormatter();
+        formatter.printHelp("load", options);
+    }
+}
@@ -0,0 +1,24 @@
+package redes.load;
+
+/**
+ * The formats a {@link LoadReport} can be rendered in
+ */
+public enum ReportFormat {
+    TEXT, JSON, CSV;
+
+    /**
+     * Gets the format matching the given string, ignoring case
+     *
+     * @param value The format name
+     * @return The format
+     * @throws IllegalArgumentException If there is no format matching the string
+     */
+    public static ReportFormat getEnum(String value) throws IllegalArgumentException {
+        for (var format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported report format: " + value);
+    }
+}
@@ -0,0 +1,160 @@
+package redes.load;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Random;
+
+/**
+ * A client sending images to the server one connection at a time, as
+ * {@code ClientConnector} does with older servers, until the end of the test
+ * <p>
+ * Answers are read but not printed, so the client is only as slow as the
+ * server
+ */
+public class VirtualClient implements Runnable {
+
+    /**
+     * How long a client turned away, or whose exchange failed, waits before
+     * connecting again, so rejections do not turn into a busy loop
+     */
+    private static final long REJECTED_PAUSE_MILLIS = 100;
+
+    private final InetSocketAddress address;
+    private final ImageMix mix;
+    private final Random random;
+    private final int timeoutMillis;
+
+    /**
+     * When the client starts sending, in {@link System#nanoTime()} time
+     */
+    private final long startNs;
+
+    /**
+     * When the client stops sending, in {@link System#nanoTime()} time
+     */
+    private final long endNs;
+
+    private final ClientStats stats = new ClientStats();
+
+    /**
+     * Creates a virtual client
+     *
+     * @param address       The server address
+     * @param mix           The images to send
+     * @param seed          The seed of the image picks
+     * @param timeoutMillis The socket read timeout
+     * @param startNs       When to start sending, in {@link System#nanoTime()} time
+     * @param endNs         When to stop sending, in {@link System#nanoTime()} time
+     */
+    public VirtualClient(InetSocketAddress address, ImageMix mix, long seed, int timeoutMillis, long startNs,
+            long endNs) {
+        this.address = address;
+        this.mix = mix;
+        this.random = new Random(seed);
+        this.timeoutMillis = timeoutMillis;
+        this.startNs = startNs;
+        this.endNs = endNs;
+    }
+
+    /**
+     * Returns what the client saw, to be read once it finished
+     *
+     * @return The client stats
+     */
+    public ClientStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void run() {
+        try {
+            sleepUntil(startNs);
+            while (System.nanoTime() - endNs < 0) {
+                if (!exchange(mix.pick(random))) {
+                    Thread.sleep(REJECTED_PAUSE_MILLIS);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends an image over a new connection and reads the answer until the "bye"
+     *
+     * @param image The image to send
+     * @return {@code false} if the server turned the client away or the exchange
+     *         failed
+     */
+    private boolean exchange(ImageMix.Image image) {
+        var start = System.nanoTime();
+        try (var socket = new Socket()) {
+            socket.connect(address, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            var reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            var dos = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            var line = readLine(reader);
+            if (line.startsWith("queued")) {
+                stats.queued();
+                while (line.startsWith("queued")) {
+                    line = readLine(reader);
+                }
+            }
+            if (line.startsWith("Too many connections")) {
+                stats.rejected();
+                return false;
+            }
+            if (line.startsWith("Timed out")) {
+                stats.queueTimedOut();
+                return false;
+            }
+            if (!line.equals("ready")) {
+                throw new IOException("Unexpected answer: " + line);
+            }
+
+            dos.writeUTF(image.name);
+            dos.writeLong(image.bytes.length);
+            try {
+                dos.write(image.bytes);
+                dos.flush();
+            } catch (SocketException ex) {
+                // The server answered early and closed the connection
+            }
+
+            var valid = true;
+            while (!(line = readLine(reader)).equals("bye")) {
+                if (line.startsWith("Invalid image")) {
+                    valid = false;
+                }
+            }
+            stats.answered(valid, image.bytes.length, System.nanoTime() - start);
+        } catch (IOException ex) {
+            stats.failed();
+            return false;
+        }
+        return true;
+    }
+
+    private static String readLine(BufferedReader reader) throws IOException {
+        var line = reader.readLine();
+        if (line == null) {
+            throw new EOFException("Connection closed before the bye");
+        }
+        return line;
+    }
+
+    private static void sleepUntil(long deadlineNs) throws InterruptedException {
+        var remaining = deadlineNs - System.nanoTime();
+        if (remaining > 0) {
+            Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+        }
+    }
+}
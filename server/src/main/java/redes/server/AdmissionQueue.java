@@ -0,0 +1,176 @@
+package redes.server;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Admits clients up to the connection limit and keeps a bounded line of the
+ * ones arriving while the limit is reached, so bursts wait for a slot instead of
+ * being turned away
+ * <p>
+ * Queued clients are told their position and served in arrival order as soon as
+ * a connection ends. A client still queued after the wait timeout is told to try
+ * again later, and only clients arriving with the queue full are rejected right
+ * away
+ */
+public class AdmissionQueue {
+
+    /**
+     * Period of the check for queued clients waiting for too long
+     */
+    private static final long SWEEP_PERIOD_MILLIS = 1000;
+
+    /**
+     * A queued client
+     */
+    private static class Waiting {
+        final Socket socket;
+        final PrintWriter writer;
+        final long admitted;
+        final long deadline;
+
+        Waiting(Socket socket, PrintWriter writer, long admitted, long deadline) {
+            this.socket = socket;
+            this.writer = writer;
+            this.admitted = admitted;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Connection slots not in use
+     */
+    private final Semaphore permits;
+
+    /**
+     * Maximum number of queued clients
+     */
+    private final int depth;
+
+    /**
+     * How long a client may stay queued, in nanoseconds
+     */
+    private final long timeout;
+
+    /**
+     * Starts serving a client that holds a slot, given when it was admitted
+     */
+    private final BiConsumer<Socket, Long> dispatcher;
+
+    /**
+     * Queued clients, in arrival order
+     */
+    private final Deque<Waiting> waiting = new ArrayDeque<>();
+
+    /**
+     * Creates the queue and starts the check for expired clients
+     * 
+     * @param maxConnections The limit of simultaneous connections
+     * @param depth          The maximum number of queued clients
+     * @param timeoutMillis  How long a client may stay queued
+     * @param dispatcher     Starts serving a client once it holds a slot, given
+     *                       the {@link System#nanoTime()} it was admitted at
+     */
+    public AdmissionQueue(int maxConnections, int depth, long timeoutMillis, BiConsumer<Socket, Long> dispatcher) {
+        this.permits = new Semaphore(maxConnections);
+        this.depth = depth;
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.dispatcher = dispatcher;
+
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, "admission-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::sweep, SWEEP_PERIOD_MILLIS, SWEEP_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Serves the client right away if a slot is free and nobody is queued,
+     * otherwise queues it or rejects it if the queue is full
+     * 
+     * @param socket The accepted client socket
+     * @throws IOException If the client could not be told about its admission
+     */
+    public void admit(Socket socket) throws IOException {
+        var admitted = System.nanoTime();
+        var writer = new PrintWriter(socket.getOutputStream(), true);
+        int position;
+        synchronized (this) {
+            if (waiting.isEmpty() && permits.tryAcquire()) {
+                position = 0;
+            } else if (waiting.size() < depth) {
+                waiting.add(new Waiting(socket, writer, admitted, admitted + timeout));
+                position = waiting.size();
+            } else {
+                position = -1;
+            }
+        }
+
+        if (position == 0) {
+            dispatcher.accept(socket, admitted);
+        } else if (position > 0) {
+            Log.info("CLIENT %s - Queued at position %d", socket.getInetAddress(), position);
+            writer.println("queued, position " + position);
+        } else {
+            Log.warn("Reached connection limit");
+            Metrics.rejected();
+            writer.println("Too many connections active. Try again later");
+            writer.println("bye");
+            socket.close();
+        }
+    }
+
+    /**
+     * Frees the slot of a finished connection, handing it to the first queued
+     * client if there is one
+     */
+    public void release() {
+        Waiting next;
+        synchronized (this) {
+            next = waiting.poll();
+            if (next == null) {
+                permits.release();
+                return;
+            }
+        }
+        dispatcher.accept(next.socket, next.admitted);
+    }
+
+    /**
+     * Sends away the queued clients whose wait timed out
+     */
+    private void sweep() {
+        var now = System.nanoTime();
+        var expired = new ArrayDeque<Waiting>();
+        synchronized (this) {
+            waiting.removeIf(client -> {
+                if (now - client.deadline >= 0) {
+                    expired.add(client);
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        for (var client : expired) {
+            Log.warn("CLIENT %s - Timed out in queue", client.socket.getInetAddress());
+            Metrics.rejected();
+            client.writer.println("Timed out waiting for a free connection. Try again later");
+            client.writer.println("bye");
+            try {
+                client.socket.close();
+            } catch (IOException ex) {
+                Log.error("Server exception when closing connection: %s", ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package redes.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import redes.lib.ScanResult;
+
+/**
+ * Cached results kept in a memory-mapped file, so they survive restarts
+ * <p>
+ * The file is a fixed size hash table of {@value #SLOTS} slots of
+ * {@value #SLOT_SIZE} bytes, looked up by linear probing from the slot chosen by
+ * the digest. Each slot holds a {@link CRC32} of its content, so slots never
+ * written or torn by a crash are taken as empty. Results too long for a slot are
+ * only kept in memory
+ */
+class DiskResultTier {
+
+    /**
+     * Number of slots in the file
+     */
+    static final int SLOTS = 1 << 16;
+
+    /**
+     * Size of each slot
+     */
+    static final int SLOT_SIZE = 256;
+
+    /**
+     * Slots looked at from the one chosen by the digest
+     */
+    private static final int PROBES = 8;
+
+    /**
+     * Length of the digests used as keys
+     */
+    private static final int KEY_LENGTH = 32;
+
+    /**
+     * Bytes before the data in a slot: CRC, status, data length and key
+     */
+    private static final int HEADER_LENGTH = 4 + 1 + 2 + KEY_LENGTH;
+
+    /**
+     * Maximum data length of a result kept in the file
+     */
+    static final int MAX_DATA_LENGTH = SLOT_SIZE - HEADER_LENGTH;
+
+    /**
+     * The mapped file
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Maps the given file, creating it if missing
+     * 
+     * @param file The file backing the tier
+     * @throws IOException If the file could not be mapped
+     */
+    DiskResultTier(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) SLOTS * SLOT_SIZE);
+        }
+    }
+
+    /**
+     * Looks for the result of the image with the given digest
+     * 
+     * @param digest The SHA-256 digest of the image
+     * @return The result, or {@code null} if there is none
+     */
+    ResultCache.Entry get(byte[] digest) {
+        var home = home(digest);
+        for (var i = 0; i < PROBES; i++) {
+            var slot = slot(home + i);
+            if (isValid(slot) && hasKey(slot, digest)) {
+                var status = ScanResult.Status.values()[slot.get(4)];
+                var data = new byte[Short.toUnsignedInt(slot.getShort(5))];
+                slot.position(HEADER_LENGTH);
+                slot.get(data);
+                return new ResultCache.Entry(status, data);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores the result of the image with the given digest, replacing the result
+     * in the slot chosen by the digest if every probed slot is taken
+     * 
+     * @param digest The SHA-256 digest of the image
+     * @param entry  The result
+     */
+    void put(byte[] digest, ResultCache.Entry entry) {
+        if (entry.data.length > MAX_DATA_LENGTH) {
+            return;
+        }
+        var home = home(digest);
+        var target = slot(home);
+        for (var i = 0; i < PROBES; i++) {
+            var slot = slot(home + i);
+            if (!isValid(slot) || hasKey(slot, digest)) {
+                target = slot;
+                break;
+            }
+        }
+
+        target.position(4);
+        target.put((byte) entry.status.ordinal());
+        target.putShort((short) entry.data.length);
+        target.put(digest);
+        target.put(entry.data);
+        // The CRC is written last, so a torn write leaves the slot invalid
+        target.putInt(0, crcOf(target));
+    }
+
+    /**
+     * Chooses the first slot looked at for a digest
+     */
+    private static int home(byte[] digest) {
+        return (ByteBuffer.wrap(digest).getInt() & Integer.MAX_VALUE) % SLOTS;
+    }
+
+    /**
+     * Returns a view of the given slot
+     */
+    private ByteBuffer slot(int index) {
+        var view = buffer.duplicate();
+        view.position((index % SLOTS) * SLOT_SIZE);
+        view.limit(view.position() + SLOT_SIZE);
+        return view.slice();
+    }
+
+    /**
+     * Checks if a slot holds a result written completely
+     */
+    private static boolean isValid(ByteBuffer slot) {
+        var length = Short.toUnsignedInt(slot.getShort(5));
+        var status = slot.get(4);
+        return length <= MAX_DATA_LENGTH && status >= 0 && status < ScanResult.Status.values().length
+                && slot.getInt(0) == crcOf(slot);
+    }
+
+    /**
+     * Checks if a slot holds the result of the given digest
+     */
+    private static boolean hasKey(ByteBuffer slot, byte[] digest) {
+        for (var i = 0; i < KEY_LENGTH; i++) {
+            if (slot.get(7 + i) != digest[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Calculates the {@link CRC32} of the content of a slot
+     */
+    private static int crcOf(ByteBuffer slot) {
+        var length = Short.toUnsignedInt(slot.getShort(5));
+        var content = slot.duplicate();
+        content.position(4);
+        content.limit(HEADER_LENGTH + length);
+        var crc = new CRC32();
+        crc.update(content);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,34 @@
+package redes.server;
+
+/**
+ * When the server answers a client, relative to the end of its upload
+ */
+public enum EarlyReply {
+    /**
+     * Answers after the whole upload is received
+     */
+    NONE,
+    /**
+     * Answers as soon as the hidden message is found, then discards the rest of
+     * the upload
+     */
+    DRAIN,
+    /**
+     * Answers as soon as the hidden message is found, then closes the connection
+     * without reading the rest of the upload
+     */
+    CLOSE;
+
+    /**
+     * Does the same as {@code Enum.valueOf}, but it normalizes the input
+     * beforehand
+     */
+    public static EarlyReply getEnum(String value) throws IllegalArgumentException {
+        for (var v : values()) {
+            if (v.toString().equals(value.toUpperCase())) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("Early reply mode not supported: " + value);
+    }
+}
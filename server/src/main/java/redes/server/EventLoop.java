@@ -0,0 +1,92 @@
+package redes.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A thread serving many {@link NioConnection}s through a single
+ * {@link Selector}
+ */
+public class EventLoop implements Runnable {
+
+    /**
+     * Size of the buffer the connections read into
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Selector of the connections served by this loop
+     */
+    private final Selector selector;
+
+    /**
+     * Connections handed by the acceptor and not registered yet
+     */
+    private final Queue<NioConnection> registrations = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Buffer shared by the connections, as each read is fully consumed before the
+     * next one
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public EventLoop() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Hands a connection to this loop. May be called from any thread
+     * 
+     * @param connection The accepted connection
+     */
+    public void register(NioConnection connection) {
+        registrations.add(connection);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                selector.select();
+            } catch (IOException ex) {
+                Log.error("Server exception when selecting: %s", ex.getMessage());
+                return;
+            }
+
+            NioConnection connection;
+            while ((connection = registrations.poll()) != null) {
+                try {
+                    connection.channel.configureBlocking(false);
+                    connection.start(connection.channel.register(selector, SelectionKey.OP_READ, connection));
+                } catch (IOException ex) {
+                    Log.error("Server exception when registering connection: %s", ex.getMessage());
+                    connection.close();
+                }
+            }
+
+            var keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                var key = keys.next();
+                keys.remove();
+                connection = (NioConnection) key.attachment();
+                try {
+                    if (key.isValid() && key.isReadable()) {
+                        connection.onReadable(buffer);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        connection.onWritable();
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    Log.error("Server exception when processing data: %s", ex.getMessage());
+                    Metrics.failed();
+                    connection.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package redes.server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of durations recorded by many threads without locking
+ * <p>
+ * Durations are counted in buckets whose width grows with their value: each
+ * power of two is split in {@link #SUB_BUCKETS} buckets, so a percentile is
+ * reported with an error below 1 / {@link #SUB_BUCKETS} of its value, while the
+ * whole range of a {@code long} fits in a few hundred counters. Recording a
+ * duration is a couple of atomic additions, and the maximum is kept exact
+ * <p>
+ * Reading the histogram while durations are recorded gives a slightly stale,
+ * but never corrupted, picture
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    /**
+     * Number of bits of a duration, below its highest bit, telling its bucket
+     */
+    private static final int SUB_BITS = 3;
+
+    /**
+     * Number of buckets each power of two is split in
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Number of buckets covering every positive {@code long}
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records a duration
+     *
+     * @param nanos The duration in nanoseconds, negative ones count as zero
+     */
+    public void record(long nanos) {
+        var value = Math.max(nanos, 0);
+        buckets.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Returns the duration below which the given fraction of the recorded ones
+     * are
+     *
+     * @param fraction The fraction, between 0 and 1
+     * @return The duration in nanoseconds, 0 if nothing was recorded
+     */
+    public long percentile(double fraction) {
+        var counts = new long[BUCKETS];
+        var total = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        var rank = Math.max(1, (long) Math.ceil(fraction * total));
+        var seen = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        var recorded = count.sum();
+        return recorded > 0 ? sum.sum() / (recorded * 1000.0) : 0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentile(0.5) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentile(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return max.get() / 1000.0;
+    }
+
+    /**
+     * Forgets every recorded duration. Durations recorded at the same time may
+     * be partly kept
+     */
+    @Override
+    public void reset() {
+        for (var i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Finds the bucket counting the given duration
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        var shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /**
+     * Returns the largest duration counted by the given bucket
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        var shift = index / SUB_BUCKETS - 1;
+        var lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
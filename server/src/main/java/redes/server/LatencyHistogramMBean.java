@@ -0,0 +1,19 @@
+package redes.server;
+
+/**
+ * Management interface of a {@link LatencyHistogram}
+ */
+public interface LatencyHistogramMBean {
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+
+    void reset();
+}
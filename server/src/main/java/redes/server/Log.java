@@ -0,0 +1,186 @@
+package redes.server;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Server log written off the connection threads
+ * <p>
+ * Logging a message only checks its level and queues the format and its
+ * arguments. A single daemon thread formats the queued messages and writes them
+ * to {@link System#out} in batches, so connections never wait on the
+ * {@link System#out} lock nor pay for {@link String#format}. If the queue is
+ * full the message is dropped and counted rather than slowing a connection
+ * down, and the number of dropped messages is logged with the next batch.
+ * Errors are never dropped, they are written by the caller instead
+ * <p>
+ * A {@link Throwable} passed as last argument has its stack trace written after
+ * the message
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class Log {
+
+    /**
+     * Number of messages waiting to be written before new ones are dropped
+     */
+    private static final int QUEUE_CAPACITY = 16384;
+
+    /**
+     * Maximum number of messages written at once
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * A message waiting to be formatted
+     */
+    private static class Record {
+        final String format;
+        final Object[] args;
+
+        Record(String format, Object[] args) {
+            this.format = format;
+            this.args = args;
+        }
+    }
+
+    private static final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static volatile LogLevel level = LogLevel.INFO;
+
+    static {
+        var appender = new Thread(Log::append, "log-appender");
+        appender.setDaemon(true);
+        appender.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::flush));
+    }
+
+    /**
+     * Sets the most detailed level logged
+     *
+     * @param level The level
+     */
+    static void setLevel(LogLevel level) {
+        Log.level = level;
+    }
+
+    /**
+     * Checks if messages of the given level are logged, so callers can skip
+     * preparing arguments that would be thrown away
+     *
+     * @param level The level of the message
+     * @return {@code true} If the messages are logged, {@code false} otherwise
+     */
+    static boolean isEnabled(LogLevel level) {
+        return level.compareTo(Log.level) <= 0;
+    }
+
+    /**
+     * Logs a failure of the server
+     */
+    static void error(String format, Object... args) {
+        log(LogLevel.ERROR, format, args);
+    }
+
+    /**
+     * Logs a client turned away or a degraded mode
+     */
+    static void warn(String format, Object... args) {
+        log(LogLevel.WARN, format, args);
+    }
+
+    /**
+     * Logs a connection event
+     */
+    static void info(String format, Object... args) {
+        log(LogLevel.INFO, format, args);
+    }
+
+    /**
+     * Logs a protocol detail
+     */
+    static void debug(String format, Object... args) {
+        log(LogLevel.DEBUG, format, args);
+    }
+
+    /**
+     * Queues a message to be written if its level is logged
+     *
+     * @param level  The level of the message
+     * @param format The message, as given to {@link String#format}
+     * @param args   The arguments of the format, immutable or not changed later
+     */
+    static void log(LogLevel level, String format, Object... args) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        var record = new Record(format, args);
+        if (!queue.offer(record)) {
+            if (level == LogLevel.ERROR) {
+                write(List.of(record));
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Writes the queued messages in batches until the server ends
+     */
+    private static void append() {
+        var batch = new ArrayList<Record>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes whatever is still queued, called when the server ends
+     */
+    private static void flush() {
+        var batch = new ArrayList<Record>();
+        queue.drainTo(batch);
+        write(batch);
+    }
+
+    private static synchronized void write(List<Record> batch) {
+        var text = new StringBuilder();
+        var lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            text.append(lost).append(" log messages dropped").append(System.lineSeparator());
+        }
+        for (var record : batch) {
+            try {
+                text.append(String.format(record.format, record.args));
+            } catch (RuntimeException ex) {
+                // A bad format must not stop the appender, so it is written as is
+                text.append(record.format);
+            }
+            text.append(System.lineSeparator());
+            var last = record.args.length > 0 ? record.args[record.args.length - 1] : null;
+            if (last instanceof Throwable) {
+                var trace = new StringWriter();
+                ((Throwable) last).printStackTrace(new PrintWriter(trace));
+                text.append(trace);
+            }
+        }
+        System.out.print(text);
+        System.out.flush();
+    }
+}
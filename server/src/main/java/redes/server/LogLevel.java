@@ -0,0 +1,37 @@
+package redes.server;
+
+/**
+ * How much the server logs, each level including the ones above it
+ */
+public enum LogLevel {
+    /**
+     * Failures of the server itself
+     */
+    ERROR,
+    /**
+     * Clients turned away and degraded modes
+     */
+    WARN,
+    /**
+     * Connections, uploads and their results, with a few progress lines per
+     * upload
+     */
+    INFO,
+    /**
+     * Protocol details and cache statistics of every request
+     */
+    DEBUG;
+
+    /**
+     * Does the same as {@code Enum.valueOf}, but it normalizes the input
+     * beforehand
+     */
+    public static LogLevel getEnum(String value) throws IllegalArgumentException {
+        for (var v : values()) {
+            if (v.toString().equals(value.toUpperCase())) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("Log level not supported: " + value);
+    }
+}
@@ -0,0 +1,226 @@
+package redes.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and stage timings of the server, exposed as MBeans
+ * <p>
+ * Every stage of a request feeds a {@link LatencyHistogram}, registered as
+ * {@code redes.server:type=Latency,stage=<stage>}, and the counters are
+ * registered as {@code redes.server:type=Metrics}, next to the lookups of the
+ * {@link ResultCache}. Recording is lock-free, so the connections do not
+ * contend on it
+ */
+public final class Metrics implements MetricsMBean {
+
+    /**
+     * The stages of a request that are timed
+     */
+    public enum Stage {
+        /**
+         * From the accepted connection to the "ready" message, queueing included
+         */
+        ACCEPT_TO_READY,
+        /**
+         * From the file size to the last byte of the upload
+         */
+        RECEIVE,
+        /**
+         * Parsing the upload, while it is received
+         */
+        PARSE,
+        /**
+         * Decoding the hidden message
+         */
+        DECODE,
+        /**
+         * Handing the result to the socket. A blocking connection waits for the
+         * socket, a non-blocking one only queues it
+         */
+        WRITE
+    }
+
+    private static final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+
+    private static final AtomicInteger activeConnections = new AtomicInteger();
+
+    private static final LongAdder bytesIn = new LongAdder();
+
+    private static final LongAdder requests = new LongAdder();
+
+    private static final LongAdder rejections = new LongAdder();
+
+    private static final LongAdder invalidImages = new LongAdder();
+
+    private static final LongAdder errors = new LongAdder();
+
+    private static volatile int maxConnections;
+
+    private static volatile ResultCache cache;
+
+    static {
+        for (var stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server
+     *
+     * @param maxConnections The limit of simultaneous connections, shown next to
+     *                       the active ones
+     * @param cache          Results of previous uploads, {@code null} if disabled
+     */
+    static void register(int maxConnections, ResultCache cache) {
+        Metrics.maxConnections = maxConnections;
+        Metrics.cache = cache;
+        var server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new Metrics(), new ObjectName("redes.server:type=Metrics"));
+            for (var stage : Stage.values()) {
+                var name = stage.toString().toLowerCase().replace('_', '-');
+                server.registerMBean(stages.get(stage), new ObjectName("redes.server:type=Latency,stage=" + name));
+            }
+        } catch (JMException ex) {
+            Log.warn("Metrics not available through JMX: %s", ex.getMessage());
+        }
+    }
+
+    /**
+     * Records the time taken by a stage of a request
+     *
+     * @param stage The stage
+     * @param nanos The time taken, in nanoseconds
+     */
+    static void record(Stage stage, long nanos) {
+        stages.get(stage).record(nanos);
+    }
+
+    /**
+     * Returns the timings of a stage
+     *
+     * @param stage The stage
+     * @return The histogram of the stage
+     */
+    static LatencyHistogram latencyOf(Stage stage) {
+        return stages.get(stage);
+    }
+
+    /**
+     * Counts a connection being served
+     */
+    static void connectionOpened() {
+        activeConnections.incrementAndGet();
+    }
+
+    /**
+     * Counts a served connection ending
+     */
+    static void connectionClosed() {
+        activeConnections.decrementAndGet();
+    }
+
+    /**
+     * Counts bytes received from the clients
+     */
+    static void received(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    /**
+     * Counts an image tested
+     */
+    static void requested() {
+        requests.increment();
+    }
+
+    /**
+     * Counts a client turned away
+     */
+    static void rejected() {
+        rejections.increment();
+    }
+
+    /**
+     * Counts an image found invalid
+     */
+    static void invalid() {
+        invalidImages.increment();
+    }
+
+    /**
+     * Counts a server failure while serving a connection
+     */
+    static void failed() {
+        errors.increment();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    @Override
+    public long getInvalidImages() {
+        return invalidImages.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getCacheMemoryHits() {
+        var current = cache;
+        return current != null ? current.getMemoryHits() : 0;
+    }
+
+    @Override
+    public long getCacheDiskHits() {
+        var current = cache;
+        return current != null ? current.getDiskHits() : 0;
+    }
+
+    @Override
+    public long getCacheMisses() {
+        var current = cache;
+        return current != null ? current.getMisses() : 0;
+    }
+
+    @Override
+    public int getCacheSize() {
+        var current = cache;
+        return current != null ? current.size() : 0;
+    }
+}
@@ -0,0 +1,29 @@
+package redes.server;
+
+/**
+ * Management interface of the server {@link Metrics}
+ */
+public interface MetricsMBean {
+
+    int getMaxConnections();
+
+    int getActiveConnections();
+
+    long getBytesIn();
+
+    long getRequests();
+
+    long getRejections();
+
+    long getInvalidImages();
+
+    long getErrors();
+
+    long getCacheMemoryHits();
+
+    long getCacheDiskHits();
+
+    long getCacheMisses();
+
+    int getCacheSize();
+}
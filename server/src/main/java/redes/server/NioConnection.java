@@ -0,0 +1,168 @@
+package redes.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import redes.lib.CrcPolicy;
+
+/**
+ * A client connection driven by an {@link EventLoop}
+ * <p>
+ * The bytes the socket has are fed to a {@link ProtocolHandler} and its answers
+ * are sent as the socket accepts them, so the connection never blocks the
+ * thread that serves it
+ */
+public class NioConnection {
+
+    /**
+     * Client identification
+     */
+    final String id;
+
+    /**
+     * Connections channel
+     */
+    final SocketChannel channel;
+
+    /**
+     * Concurrent connections counter
+     */
+    final AtomicInteger connectionsCounter;
+
+    /**
+     * The protocol run over this connection
+     */
+    private final ProtocolHandler handler;
+
+    /**
+     * Messages waiting to be sent
+     */
+    private final Queue<ByteBuffer> pending = new ArrayDeque<>();
+
+    /**
+     * The selection key of the channel
+     */
+    private SelectionKey key;
+
+    /**
+     * When the connection was accepted, from {@link System#nanoTime()}
+     */
+    private final long accepted = System.nanoTime();
+
+    /**
+     * Whether the connection was closed
+     */
+    private boolean closed;
+
+    public NioConnection(SocketChannel channel, AtomicInteger connectionsCounter, EarlyReply earlyReply,
+            CrcPolicy crcPolicy, int maxMessageLength, ResultCache cache) {
+        this.id = channel.socket().getInetAddress().toString();
+        this.channel = channel;
+        this.connectionsCounter = connectionsCounter;
+        this.handler = new ProtocolHandler(id, earlyReply, crcPolicy, maxMessageLength, cache,
+                pending::add);
+        Metrics.connectionOpened();
+    }
+
+    /**
+     * Starts the protocol once the channel is registered
+     * 
+     * @param key The selection key of the channel
+     */
+    void start(SelectionKey key) throws IOException {
+        this.key = key;
+        Log.info("CLIENT %s - Connected", id);
+        pending.add(ByteBuffer.wrap(("ready" + System.lineSeparator()).getBytes(Charset.defaultCharset())));
+        updateInterest();
+        Metrics.record(Metrics.Stage.ACCEPT_TO_READY, System.nanoTime() - accepted);
+    }
+
+    /**
+     * Reads what the client sent and advances the protocol
+     * 
+     * @param buffer Buffer shared by the connections of the event loop
+     */
+    void onReadable(ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        var read = channel.read(buffer);
+        if (read < 0) {
+            handler.onEnd();
+            close();
+            return;
+        }
+        buffer.flip();
+        handler.onData(buffer);
+        updateInterest();
+    }
+
+    /**
+     * Sends the pending messages the channel accepts without blocking
+     */
+    void onWritable() throws IOException {
+        flush();
+        updateInterest();
+    }
+
+    /**
+     * Closes the connection and releases its slot
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            Log.error("Server exception when closing connection: %s", ex.getMessage());
+        }
+
+        // Decrements connections counter
+        connectionsCounter.decrementAndGet();
+        Metrics.connectionClosed();
+        Log.info("CLIENT %s - Done", id);
+    }
+
+    /**
+     * Writes the pending messages until the channel stops accepting bytes
+     */
+    private void flush() throws IOException {
+        while (!pending.isEmpty()) {
+            var message = pending.peek();
+            channel.write(message);
+            if (message.hasRemaining()) {
+                return;
+            }
+            pending.poll();
+        }
+    }
+
+    /**
+     * Sends what it can and selects the events the connection waits for next,
+     * closing it once everything was sent after the protocol is over
+     */
+    private void updateInterest() throws IOException {
+        if (closed) {
+            return;
+        }
+        flush();
+        if (handler.isFinished() && pending.isEmpty()) {
+            close();
+            return;
+        }
+        var ops = handler.isFinished() ? 0 : SelectionKey.OP_READ;
+        if (!pending.isEmpty()) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        key.interestOps(ops);
+    }
+}
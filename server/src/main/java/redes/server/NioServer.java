@@ -0,0 +1,124 @@
+package redes.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import redes.lib.CrcPolicy;
+
+/**
+ * Server engine handling its clients with a fixed set of {@link EventLoop}s
+ * instead of a thread per connection, so slow uploads only cost the memory of
+ * their state
+ */
+public class NioServer {
+
+    /**
+     * The limit of simultaneous connections
+     */
+    final int maxConnections;
+
+    /**
+     * When to answer a client, relative to the end of its upload
+     */
+    final EarlyReply earlyReply;
+
+    /**
+     * When the CRC of the uploaded chunks is checked
+     */
+    final CrcPolicy crcPolicy;
+
+    /**
+     * Longest hidden message chunk accepted, in bytes
+     */
+    final int maxMessageLength;
+
+    /**
+     * Results of previous uploads, {@code null} if disabled
+     */
+    final ResultCache cache;
+
+    /**
+     * The loops serving the connections
+     */
+    final EventLoop[] loops;
+
+    /**
+     * Creates the engine and starts its event loops
+     * 
+     * @param maxConnections   The limit of simultaneous connections
+     * @param eventLoops       The number of event loop threads
+     * @param earlyReply       When to answer a client
+     * @param crcPolicy        When the CRC of the uploaded chunks is checked
+     * @param maxMessageLength Longest hidden message chunk accepted, in bytes
+     * @param cache            Results of previous uploads, {@code null} if
+     *                         disabled
+     * @throws IOException If a selector could not be opened
+     */
+    public NioServer(int maxConnections, int eventLoops, EarlyReply earlyReply, CrcPolicy crcPolicy,
+            int maxMessageLength, ResultCache cache) throws IOException {
+        this.maxConnections = maxConnections;
+        this.earlyReply = earlyReply;
+        this.crcPolicy = crcPolicy;
+        this.maxMessageLength = maxMessageLength;
+        this.cache = cache;
+        this.loops = new EventLoop[eventLoops];
+        for (var i = 0; i < eventLoops; i++) {
+            loops[i] = new EventLoop();
+            new Thread(loops[i], "event-loop-" + i).start();
+        }
+    }
+
+    /**
+     * Accepts the clients connections and hands them to the event loops in turns
+     * 
+     * @param port The port which the server will listen on
+     */
+    public void listen(int port) {
+        AtomicInteger connectionsCounter = new AtomicInteger(0);
+        try (var serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port));
+            Log.info("Server is listening on port %d", port);
+            Log.info("Up to %d connections available on %d event loops", maxConnections, loops.length);
+
+            var next = 0;
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                if (connectionsCounter.get() < maxConnections) {
+                    connectionsCounter.incrementAndGet();
+                    loops[next].register(new NioConnection(channel, connectionsCounter, earlyReply, crcPolicy,
+                            maxMessageLength, cache));
+                    next = (next + 1) % loops.length;
+                } else {
+                    Log.warn("Reached connection limit");
+                    Metrics.rejected();
+                    reject(channel);
+                }
+            }
+        } catch (IOException ex) {
+            Log.error("Server exception: %s", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Tells the client the server is full and closes the connection
+     * 
+     * @param channel The client channel, still in blocking mode
+     */
+    private static void reject(SocketChannel channel) {
+        var separator = System.lineSeparator();
+        var message = "Too many connections active. Try again later" + separator + "bye" + separator;
+        try (channel) {
+            var buffer = ByteBuffer.wrap(message.getBytes(Charset.defaultCharset()));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException ex) {
+            Log.error("Server exception when closing connection: %s", ex.getMessage());
+        }
+    }
+}
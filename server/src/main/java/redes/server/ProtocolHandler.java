@@ -0,0 +1,879 @@
+package redes.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import redes.lib.Chunk;
+import redes.lib.ChunkType;
+import redes.lib.CrcPolicy;
+import redes.lib.Encoder;
+import redes.lib.EncodingOptions;
+import redes.lib.Frame;
+import redes.lib.PngScanner;
+import redes.lib.Protocol;
+import redes.lib.ScanResult;
+
+/**
+ * Server side of the protocol of a single connection
+ * <p>
+ * The handler is fed with the bytes received from the client in whatever pieces
+ * they arrive and hands its answers to a {@link Sink}, so the same protocol runs
+ * over a blocking socket ({@link ServerConnection}) or a non-blocking one
+ * ({@link NioConnection})
+ * <p>
+ * A connection either uploads a single image, or negotiates a
+ * {@link Protocol#SESSION} and uploads many images back to back, each tagged
+ * with a request id. Session results are tagged with the same id and sent as
+ * soon as each image is scanned. With {@link Protocol#FRAMES} the answers are
+ * binary {@link Frame}s carrying a {@link ScanResult} instead of text lines
+ * <p>
+ * With {@link Protocol#DIGEST}, offered only while results are cached, every
+ * session request starts with a kind byte. An {@link Protocol#OFFER} carries
+ * the name, the size and the digest of an image instead of its bytes, and is
+ * answered with the cached result or with a "need" asking for the upload. The
+ * digest of every upload is still computed here, so a client can never store a
+ * result under a digest that does not match its bytes
+ * <p>
+ * With {@link Protocol#DEFLATE} the bytes of every upload arrive in blocks,
+ * each one raw or deflated on its own, and are inflated before being scanned
+ */
+public class ProtocolHandler {
+
+    /**
+     * Features this server accepts
+     */
+    private static final Set<String> SUPPORTED_FEATURES = Set.of(Protocol.SESSION, Protocol.FRAMES,
+            Protocol.DIGEST, Protocol.DEFLATE);
+
+    /**
+     * Receives the bytes to be sent to the client
+     */
+    public interface Sink {
+        void send(ByteBuffer message) throws IOException;
+    }
+
+    /**
+     * Protocol states
+     */
+    private enum State {
+        /**
+         * Reading the id of the next session request
+         */
+        REQUEST_ID,
+        /**
+         * Reading the kind of the next session request
+         */
+        KIND,
+        /**
+         * Reading the length of the file name
+         */
+        NAME_LENGTH,
+        /**
+         * Reading the file name
+         */
+        NAME,
+        /**
+         * Reading the file size
+         */
+        SIZE,
+        /**
+         * Reading the digest of an offered image
+         */
+        DIGEST,
+        /**
+         * Reading the file
+         */
+        UPLOAD,
+        /**
+         * Reading the header of the next block of a compressed upload
+         */
+        BLOCK,
+        /**
+         * Reading a raw block of a compressed upload
+         */
+        RAW_BLOCK,
+        /**
+         * Reading a deflated block of a compressed upload
+         */
+        DEFLATED_BLOCK,
+        /**
+         * Done, the connection may be closed once the answers are sent
+         */
+        CLOSING
+    }
+
+    /**
+     * Minimum time between two progress lines of an upload
+     */
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Percent of an upload received after which a progress line is logged
+     * anyway
+     */
+    private static final int PROGRESS_STEP = 10;
+
+    /**
+     * Client identification
+     */
+    final String id;
+
+    /**
+     * When to answer, relative to the end of the upload
+     */
+    final EarlyReply earlyReply;
+
+    /**
+     * When the CRC of the uploaded chunks is checked
+     */
+    final CrcPolicy crcPolicy;
+
+    /**
+     * Longest hidden message chunk accepted, in bytes, so the length announced
+     * by a client cannot make the server allocate more than this
+     */
+    final int maxMessageLength;
+
+    /**
+     * Results of previous uploads, {@code null} if disabled
+     */
+    final ResultCache cache;
+
+    /**
+     * Receives the answers
+     */
+    private final Sink sink;
+
+    /**
+     * Current protocol state
+     */
+    private State state = State.NAME_LENGTH;
+
+    /**
+     * Buffer holding the protocol field being read
+     */
+    private ByteBuffer field = ByteBuffer.allocate(2);
+
+    /**
+     * Whether the connection negotiated a session
+     */
+    private boolean session;
+
+    /**
+     * Whether the answers are sent as frames
+     */
+    private boolean frames;
+
+    /**
+     * Whether session requests may offer a digest instead of the image bytes
+     */
+    private boolean digestFirst;
+
+    /**
+     * Whether the request being read offers a digest instead of the image bytes
+     */
+    private boolean offering;
+
+    /**
+     * Whether the upload bytes arrive in blocks
+     */
+    private boolean compressed;
+
+    /**
+     * Inflates the deflated blocks, created once compression is negotiated
+     */
+    private Inflater inflater;
+
+    /**
+     * Buffer receiving an inflated block
+     */
+    private byte[] inflated;
+
+    /**
+     * Bytes left of the raw block being read
+     */
+    private int blockRemaining;
+
+    /**
+     * Whether the name just read is a hello instead of a file name
+     */
+    private boolean negotiating;
+
+    /**
+     * Features asked by the client
+     */
+    private Set<String> requested;
+
+    /**
+     * Id of the session request being read
+     */
+    private int requestId;
+
+    /**
+     * Parser keeping only the hidden message chunk, {@code null} once the image is
+     * found invalid
+     */
+    private PngScanner scanner;
+
+    /**
+     * The announced file size
+     */
+    private long fileSize;
+
+    /**
+     * Number of file bytes read
+     */
+    private long total;
+
+    /**
+     * The hidden message chunk, once found
+     */
+    private Chunk hidden;
+
+    /**
+     * Whether the current upload was already answered
+     */
+    private boolean answered;
+
+    /**
+     * The outcome of the current upload, once answered
+     */
+    private ScanResult.Status status;
+
+    /**
+     * The decoded hidden message or the reason the current upload is invalid, as
+     * sent in a result frame
+     */
+    private byte[] data;
+
+    /**
+     * Digest of the current upload, {@code null} if results are not cached
+     */
+    private MessageDigest digest;
+
+    /**
+     * When the current upload started, in nanoseconds
+     */
+    private long uploadStart;
+
+    /**
+     * Time spent parsing the current upload, in nanoseconds
+     */
+    private long scanNanos;
+
+    /**
+     * When the last progress line of the current upload was logged, in
+     * nanoseconds
+     */
+    private long progressNanos;
+
+    /**
+     * Percent of the current upload received when the last progress line was
+     * logged
+     */
+    private int progressPercent;
+
+    public ProtocolHandler(String id, EarlyReply earlyReply, CrcPolicy crcPolicy, int maxMessageLength,
+            ResultCache cache, Sink sink) {
+        this.id = id;
+        this.earlyReply = earlyReply;
+        this.crcPolicy = crcPolicy;
+        this.maxMessageLength = maxMessageLength;
+        this.cache = cache;
+        this.sink = sink;
+    }
+
+    /**
+     * Checks if the protocol is over, so the connection can be closed once the
+     * answers are sent
+     * 
+     * @return {@code true} If the protocol is over, {@code false} otherwise
+     */
+    public boolean isFinished() {
+        return state == State.CLOSING;
+    }
+
+    /**
+     * Consumes the bytes received from the client and advances the protocol
+     * 
+     * @param input The bytes received, all of them are consumed
+     * @throws IOException If an answer could not be sent
+     */
+    public void onData(ByteBuffer input) throws IOException {
+        Metrics.received(input.remaining());
+        while (input.hasRemaining() && state != State.CLOSING) {
+            switch (state) {
+                case REQUEST_ID:
+                    if (fill(input)) {
+                        requestId = field.getInt(0);
+                        if (requestId == Protocol.END_OF_SESSION) {
+                            bye();
+                            state = State.CLOSING;
+                        } else {
+                            expect(digestFirst ? 1 : 2, digestFirst ? State.KIND : State.NAME_LENGTH);
+                        }
+                    }
+                    break;
+                case KIND:
+                    if (fill(input)) {
+                        offering = field.get(0) == Protocol.OFFER;
+                        expect(2, State.NAME_LENGTH);
+                    }
+                    break;
+                case NAME_LENGTH:
+                    if (fill(input)) {
+                        // Keeps the length, so the name can be decoded as written by writeUTF
+                        var name = ByteBuffer.allocate(2 + Short.toUnsignedInt(field.getShort(0)));
+                        name.put(field.flip());
+                        field = name;
+                        state = State.NAME;
+                    }
+                    break;
+                case NAME:
+                    if (fill(input)) {
+                        var fileName = new DataInputStream(new ByteArrayInputStream(field.array())).readUTF();
+                        negotiating = fileName.startsWith(Protocol.HELLO);
+                        if (negotiating) {
+                            requested = Protocol.features(fileName);
+                        } else if (offering) {
+                            Log.info("CLIENT %s - Offered file: %s", id, fileName);
+                        } else {
+                            Log.info("CLIENT %s - Received file: %s", id, fileName);
+                        }
+                        expect(8, State.SIZE);
+                    }
+                    break;
+                case SIZE:
+                    if (fill(input)) {
+                        fileSize = field.getLong(0);
+                        if (negotiating) {
+                            negotiate();
+                        } else if (offering) {
+                            expect(Protocol.DIGEST_LENGTH, State.DIGEST);
+                        } else {
+                            startUpload();
+                        }
+                    }
+                    break;
+                case DIGEST:
+                    if (fill(input)) {
+                        offer(field.array());
+                    }
+                    break;
+                case UPLOAD:
+                    upload(input);
+                    break;
+                case BLOCK:
+                    if (fill(input)) {
+                        startBlock(field.get(0), field.getInt(1));
+                    }
+                    break;
+                case RAW_BLOCK:
+                    rawBlock(input);
+                    break;
+                case DEFLATED_BLOCK:
+                    if (fill(input)) {
+                        deflatedBlock();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Tells the handler the client closed its side of the connection
+     */
+    public void onEnd() {
+        if (state != State.CLOSING) {
+            Log.warn("CLIENT %s - Connection ended before the end of the upload", id);
+            state = State.CLOSING;
+        }
+    }
+
+    /**
+     * Answers a hello with the accepted features and starts a session if it was
+     * accepted
+     */
+    private void negotiate() throws IOException {
+        var accepted = new TreeSet<>(requested);
+        accepted.retainAll(SUPPORTED_FEATURES);
+        // Offering digests only pays off with a cache and needs tagged requests
+        if (cache == null || !accepted.contains(Protocol.SESSION)) {
+            accepted.remove(Protocol.DIGEST);
+        }
+        send(Protocol.HELLO_REPLY + (accepted.isEmpty() ? "" : " " + String.join(" ", accepted)));
+
+        session = accepted.contains(Protocol.SESSION);
+        frames = accepted.contains(Protocol.FRAMES);
+        digestFirst = accepted.contains(Protocol.DIGEST);
+        compressed = accepted.contains(Protocol.DEFLATE);
+        if (compressed) {
+            inflater = new Inflater();
+            inflated = new byte[Protocol.BLOCK_SIZE];
+        }
+        Log.info("CLIENT %s - Negotiated: %s", id, accepted);
+        if (session) {
+            expect(4, State.REQUEST_ID);
+        } else {
+            expect(2, State.NAME_LENGTH);
+        }
+    }
+
+    /**
+     * Answers an offered image with its cached result, or asks for its bytes if
+     * the result is not known
+     * 
+     * @param key The digest offered by the client
+     */
+    private void offer(byte[] key) throws IOException {
+        var cached = cache.get(key);
+        if (Log.isEnabled(LogLevel.DEBUG)) {
+            Log.debug("CLIENT %s - %s", id, cache.toString());
+        }
+        if (cached != null) {
+            // A needed image is counted once its upload is finished
+            Metrics.requested();
+            Log.info("CLIENT %s - Result found in cache, upload skipped", id);
+            status = null;
+            data = null;
+            uploadStart = System.nanoTime();
+            scanNanos = 0;
+            replyCached(cached);
+        } else if (frames) {
+            sink.send(new Frame(Frame.NEED, ByteBuffer.allocate(4).putInt(0, requestId)).asByteBuffer());
+        } else {
+            send(Protocol.NEED + " " + requestId);
+        }
+        expect(4, State.REQUEST_ID);
+    }
+
+    /**
+     * Prepares the scan of a new upload
+     */
+    private void startUpload() throws IOException {
+        Log.info("CLIENT %s - File size: %d", id, fileSize);
+        Log.debug("CLIENT %s - Reading file", id);
+        scanner = new PngScanner(type -> type.is(ChunkType.HIDDEN_MESSAGE), crcPolicy, fileSize,
+                maxMessageLength);
+        hidden = null;
+        answered = false;
+        status = null;
+        data = null;
+        digest = cache != null ? sha256() : null;
+        total = 0;
+        uploadStart = System.nanoTime();
+        scanNanos = 0;
+        progressNanos = uploadStart;
+        progressPercent = 0;
+        state = State.UPLOAD;
+        if (fileSize <= 0) {
+            finish();
+        } else if (compressed) {
+            expect(Protocol.BLOCK_HEADER_LENGTH, State.BLOCK);
+        }
+    }
+
+    /**
+     * Starts reading a block of a compressed upload
+     * 
+     * @param kind   Whether the block is raw or deflated
+     * @param length The length of the block
+     */
+    private void startBlock(byte kind, int length) throws IOException {
+        if (length < 0 || length > Protocol.BLOCK_SIZE) {
+            corruptBlock("Invalid block length");
+        } else if (kind == Protocol.BLOCK_RAW) {
+            blockRemaining = length;
+            state = State.RAW_BLOCK;
+            if (length == 0) {
+                expect(Protocol.BLOCK_HEADER_LENGTH, State.BLOCK);
+            }
+        } else if (kind == Protocol.BLOCK_DEFLATED) {
+            expect(length, State.DEFLATED_BLOCK);
+            if (length == 0) {
+                deflatedBlock();
+            }
+        } else {
+            corruptBlock("Invalid block kind");
+        }
+    }
+
+    /**
+     * Scans the bytes of the raw block being read found in the input
+     */
+    private void rawBlock(ByteBuffer input) throws IOException {
+        var block = input.duplicate();
+        block.limit(block.position() + Math.min(input.remaining(), blockRemaining));
+        var start = block.position();
+        upload(block);
+        var read = block.position() - start;
+        input.position(input.position() + read);
+        blockRemaining -= read;
+        if (state == State.RAW_BLOCK && blockRemaining == 0) {
+            expect(Protocol.BLOCK_HEADER_LENGTH, State.BLOCK);
+        }
+    }
+
+    /**
+     * Inflates the deflated block just read and scans its bytes
+     */
+    private void deflatedBlock() throws IOException {
+        int length;
+        try {
+            inflater.reset();
+            inflater.setInput(field.array());
+            length = inflater.inflate(inflated);
+            if (!inflater.finished()) {
+                corruptBlock("Deflated block too large");
+                return;
+            }
+        } catch (DataFormatException ex) {
+            corruptBlock("Invalid deflated block");
+            return;
+        }
+        upload(ByteBuffer.wrap(inflated, 0, length));
+        if (state == State.DEFLATED_BLOCK) {
+            expect(Protocol.BLOCK_HEADER_LENGTH, State.BLOCK);
+        }
+    }
+
+    /**
+     * Tells the client a block could not be read and ends the connection, as the
+     * following bytes cannot be trusted to start a block
+     */
+    private void corruptBlock(String reason) throws IOException {
+        if (!answered) {
+            invalid(reason);
+        } else {
+            Log.info("CLIENT %s - Invalid image: %s", id, reason);
+        }
+        if (session) {
+            bye();
+        }
+        state = State.CLOSING;
+    }
+
+    /**
+     * Feeds the file bytes to the scanner until the hidden message is found, then
+     * only counts them
+     */
+    private void upload(ByteBuffer input) throws IOException {
+        // Bytes past the announced size belong to the next request
+        var read = (int) Math.min(input.remaining(), fileSize - total);
+        var end = input.position() + read;
+        var upload = input.duplicate();
+        upload.limit(end);
+        input.position(end);
+        total += read;
+        progress();
+        if (digest != null) {
+            digest.update(upload.duplicate());
+        }
+
+        // Once the hidden message is found the rest of the upload is only drained
+        if (hidden == null && scanner != null) {
+            try {
+                var scanStart = System.nanoTime();
+                try {
+                    hidden = scanner.next(upload);
+                } finally {
+                    scanNanos += System.nanoTime() - scanStart;
+                }
+                if (hidden != null && earlyReply != EarlyReply.NONE) {
+                    Log.info("CLIENT %s - Hidden message found, answering early", id);
+                    answer();
+                    // A session keeps reading, as the next request follows this upload
+                    if (earlyReply == EarlyReply.CLOSE && !session) {
+                        state = State.CLOSING;
+                        return;
+                    }
+                }
+            } catch (IllegalArgumentException ex) {
+                // Invalid PNG header or chunk
+                invalid(ex.getMessage());
+                if (!session) {
+                    return;
+                }
+            }
+        }
+
+        if (total >= fileSize) {
+            finish();
+        }
+    }
+
+    /**
+     * Logs how much of the upload was received, at most once a second unless
+     * another {@link #PROGRESS_STEP} percent arrived, and once it is complete
+     */
+    private void progress() {
+        if (!Log.isEnabled(LogLevel.INFO)) {
+            return;
+        }
+        var now = System.nanoTime();
+        var percent = (int) (total * 100 / fileSize);
+        if (total >= fileSize || percent - progressPercent >= PROGRESS_STEP
+                || now - progressNanos >= PROGRESS_INTERVAL) {
+            Log.info("CLIENT %s - Read: %d/%d - %d%%", id, total, fileSize, percent);
+            progressNanos = now;
+            progressPercent = percent;
+        }
+    }
+
+    /**
+     * Answers the client, if it was not answered yet, once the upload is complete
+     * and caches the result of the whole upload
+     */
+    private void finish() throws IOException {
+        Metrics.requested();
+        Metrics.record(Metrics.Stage.RECEIVE, System.nanoTime() - uploadStart);
+        Metrics.record(Metrics.Stage.PARSE, scanNanos);
+        var key = digest != null ? digest.digest() : null;
+        if (!answered) {
+            ResultCache.Entry cached = null;
+            if (key != null) {
+                cached = cache.get(key);
+                if (Log.isEnabled(LogLevel.DEBUG)) {
+                    Log.debug("CLIENT %s - %s", id, cache.toString());
+                }
+            }
+            if (cached != null) {
+                Log.info("CLIENT %s - Result found in cache", id);
+                replyCached(cached);
+                key = null;
+            } else if (hidden == null && !scanner.isAtChunkBoundary()) {
+                // The announced size ends inside the signature or a chunk header
+                invalid("Upload ended before the end of the chunk");
+            } else {
+                try {
+                    answer();
+                } catch (IllegalArgumentException ex) {
+                    // Hidden message chunk failing a deferred CRC check
+                    invalid(ex.getMessage());
+                }
+            }
+        }
+        if (key != null && status != null) {
+            cache.put(key, new ResultCache.Entry(status, data != null ? data : new byte[0]));
+        }
+        if (state == State.CLOSING) {
+            return;
+        }
+        if (session) {
+            expect(4, State.REQUEST_ID);
+        } else {
+            state = State.CLOSING;
+        }
+    }
+
+    /**
+     * Sends the result of the scan
+     */
+    private void answer() throws IOException {
+        var decodeStart = System.nanoTime();
+        byte[] message;
+        try {
+            message = getChunkMessage(hidden);
+        } finally {
+            Metrics.record(Metrics.Stage.DECODE, System.nanoTime() - decodeStart);
+        }
+        reply(message != null ? ScanResult.Status.HIDDEN : ScanResult.Status.NONE, message);
+    }
+
+    /**
+     * Sends a result found in the cache
+     */
+    private void replyCached(ResultCache.Entry entry) throws IOException {
+        if (entry.status == ScanResult.Status.INVALID) {
+            invalid(new String(entry.data, StandardCharsets.UTF_8));
+        } else {
+            reply(entry.status, entry.status == ScanResult.Status.HIDDEN ? entry.data : null);
+        }
+    }
+
+    /**
+     * Tells the client the image is invalid. A session skips the rest of the
+     * upload and goes on with the next request, otherwise the connection ends
+     */
+    private void invalid(String reason) throws IOException {
+        Metrics.invalid();
+        Log.info("CLIENT %s - Invalid image: %s", id, reason);
+        reply(ScanResult.Status.INVALID, reason.getBytes(StandardCharsets.UTF_8));
+        if (session) {
+            scanner = null;
+        } else {
+            state = State.CLOSING;
+        }
+    }
+
+    /**
+     * Sends the result of the current upload in the negotiated form
+     * 
+     * @param status The outcome of the scan
+     * @param data   The decoded hidden message or the reason the image is
+     *               invalid, {@code null} if there is none
+     */
+    private void reply(ScanResult.Status status, byte[] data) throws IOException {
+        var writeStart = System.nanoTime();
+        if (frames) {
+            sendResult(status, data);
+            // A single upload ends the connection
+            if (!session) {
+                bye();
+            }
+        } else {
+            // Only the text lines need the message as text
+            var text = data != null ? new String(data, StandardCharsets.UTF_8) : null;
+            if (session) {
+                send(Protocol.RESULT + " " + requestId + " " + status.toString().toLowerCase()
+                        + (text != null ? " " + text : ""));
+            } else if (status == ScanResult.Status.INVALID) {
+                send("Invalid image: " + text);
+                send("bye");
+            } else {
+                sink.send(encode(answerOf(text)));
+            }
+        }
+        Metrics.record(Metrics.Stage.WRITE, System.nanoTime() - writeStart);
+        this.status = status;
+        this.data = data;
+        answered = true;
+    }
+
+    /**
+     * Tells the client that the connection will end
+     */
+    private void bye() throws IOException {
+        if (frames) {
+            sink.send(Frame.of(Frame.BYE).asByteBuffer());
+        } else {
+            send("bye");
+        }
+    }
+
+    /**
+     * Sends the result of the current upload as a frame
+     */
+    private void sendResult(ScanResult.Status status, byte[] data) throws IOException {
+        var receiveMicros = (System.nanoTime() - uploadStart) / 1000;
+        var result = new ScanResult(session ? requestId : 0, status, receiveMicros, scanNanos / 1000,
+                data != null ? data : new byte[0]);
+        sink.send(result.toFrame().asByteBuffer());
+    }
+
+    /**
+     * Creates the digest used as key of the cached results
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Sends a line to the client
+     */
+    private void send(String line) throws IOException {
+        sink.send(encode(line + System.lineSeparator()));
+    }
+
+    /**
+     * Encodes text the way {@link java.io.PrintWriter} does
+     */
+    private static ByteBuffer encode(String text) {
+        return ByteBuffer.wrap(text.getBytes(Charset.defaultCharset()));
+    }
+
+    /**
+     * Starts reading a protocol field
+     */
+    private void expect(int length, State next) {
+        field = ByteBuffer.allocate(length);
+        state = next;
+    }
+
+    /**
+     * Copies as many bytes as possible from the input to the field being read
+     * 
+     * @return {@code true} If the field is complete, {@code false} otherwise
+     */
+    private boolean fill(ByteBuffer input) {
+        var count = Math.min(input.remaining(), field.remaining());
+        var slice = input.duplicate();
+        slice.limit(slice.position() + count);
+        field.put(slice);
+        input.position(input.position() + count);
+        return !field.hasRemaining();
+    }
+
+    /**
+     * Creates the lines sent to the client with the result of the scan, ending
+     * with the "bye" that tells it the connection will end
+     * 
+     * @param message The hidden message, {@code null} if there is none
+     * @return The answer lines
+     */
+    static String answerOf(String message) {
+        var separator = System.lineSeparator();
+        var answer = new StringBuilder();
+        if (message != null) {
+            answer.append("There's a hidden message: ").append(separator);
+            answer.append(message).append(separator);
+        } else {
+            answer.append("There's no hidden message").append(separator);
+        }
+
+        // Tells client that the connection will end
+        answer.append("bye").append(separator);
+        return answer.toString();
+    }
+
+    /**
+     * Decrypts the hidden message of the given chunk
+     * @param chunk The hidden message chunk, may be {@code null}
+     * @return The bytes of the hidden message decrypted if the chunk exists, otherwise {@code null}
+     */
+    static byte[] getChunkMessage(Chunk chunk) {
+        if (chunk != null) {
+            var data = chunk.getDataBuffer();
+
+            // First byte contains encryption details
+            var firstByte = data.get();
+
+            var messageByteArray = new byte[data.remaining()];
+            data.get(messageByteArray);
+
+            // XOR encryption uses the first byte as 0b00000000
+            if (firstByte > 0) {
+                // CAESAR encrypted
+                // Ignoring the last 3 bits and shifting the first bytes's value
+                // to discover the offset used in the message's encryption
+                int offset = (int) (firstByte & 0b11111000);
+                offset = offset >> 3;
+                Encoder.decode(messageByteArray, 0, messageByteArray.length, EncodingOptions.CAESAR, offset);
+            } else {
+                // XOR encrypted
+                Encoder.decode(messageByteArray, 0, messageByteArray.length, EncodingOptions.XOR, 0);
+            }
+            // Decoded in place, so the only copy is the one out of the read-only chunk
+            return messageByteArray;
+        }
+        return null;
+    }
+}
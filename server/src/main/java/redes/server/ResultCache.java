@@ -0,0 +1,200 @@
+package redes.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import redes.lib.ScanResult;
+
+/**
+ * Results of previous scans, keyed by the SHA-256 digest of the uploaded image
+ * <p>
+ * Recent results are kept in memory, the least recently used ones being evicted
+ * once their total size exceeds the limit. An optional {@link DiskResultTier}
+ * keeps results in a memory-mapped file, so they survive restarts; results
+ * found there are promoted back to memory
+ */
+public class ResultCache {
+
+    /**
+     * A cached result
+     */
+    public static class Entry {
+        final ScanResult.Status status;
+        final byte[] data;
+
+        public Entry(ScanResult.Status status, byte[] data) {
+            this.status = status;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Estimated memory taken by an entry besides its data
+     */
+    private static final long ENTRY_OVERHEAD = 128;
+
+    /**
+     * Maximum memory taken by the entries kept in memory
+     */
+    private final long maxBytes;
+
+    /**
+     * Entries kept in memory, in access order
+     */
+    private final LinkedHashMap<ByteBuffer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Entries kept in a memory-mapped file, {@code null} if disabled
+     */
+    private final DiskResultTier disk;
+
+    /**
+     * Memory taken by the entries kept in memory
+     */
+    private long bytes;
+
+    /**
+     * Lookups answered from memory
+     */
+    private final AtomicLong memoryHits = new AtomicLong();
+
+    /**
+     * Lookups answered from disk
+     */
+    private final AtomicLong diskHits = new AtomicLong();
+
+    /**
+     * Lookups not answered
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a cache kept only in memory
+     * 
+     * @param maxBytes Maximum memory taken by the cached results
+     */
+    public ResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.disk = null;
+    }
+
+    /**
+     * Creates a cache also kept in the given file
+     * 
+     * @param maxBytes Maximum memory taken by the cached results
+     * @param file     The file backing the disk tier, created if missing
+     * @throws IOException If the file could not be mapped
+     */
+    public ResultCache(long maxBytes, Path file) throws IOException {
+        this.maxBytes = maxBytes;
+        this.disk = new DiskResultTier(file);
+    }
+
+    /**
+     * Looks for the result of the image with the given digest
+     * 
+     * @param digest The SHA-256 digest of the image
+     * @return The cached result, or {@code null} if there is none
+     */
+    public synchronized Entry get(byte[] digest) {
+        var key = ByteBuffer.wrap(digest);
+        var entry = entries.get(key);
+        if (entry != null) {
+            memoryHits.incrementAndGet();
+            return entry;
+        }
+        if (disk != null) {
+            entry = disk.get(digest);
+            if (entry != null) {
+                diskHits.incrementAndGet();
+                keep(key, entry);
+                return entry;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores the result of the image with the given digest
+     * 
+     * @param digest The SHA-256 digest of the image
+     * @param entry  The result
+     */
+    public synchronized void put(byte[] digest, Entry entry) {
+        keep(ByteBuffer.wrap(digest.clone()), entry);
+        if (disk != null) {
+            disk.put(digest, entry);
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered from memory
+     * 
+     * @return The memory hits
+     */
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    /**
+     * Returns the number of lookups answered from disk
+     * 
+     * @return The disk hits
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * Returns the number of lookups not answered
+     * 
+     * @return The misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of results kept in memory
+     * 
+     * @return The number of entries in memory
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache: %d memory hits, %d disk hits, %d misses", getMemoryHits(), getDiskHits(),
+                getMisses());
+    }
+
+    /**
+     * Keeps an entry in memory, evicting the least recently used ones if needed
+     */
+    private void keep(ByteBuffer key, Entry entry) {
+        var previous = entries.put(key, entry);
+        if (previous != null) {
+            bytes -= sizeOf(key, previous);
+        }
+        bytes += sizeOf(key, entry);
+
+        var iterator = entries.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            var eldest = iterator.next();
+            bytes -= sizeOf(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Estimates the memory taken by an entry
+     */
+    private static long sizeOf(ByteBuffer key, Entry entry) {
+        return ENTRY_OVERHEAD + key.capacity() + entry.data.length;
+    }
+}
@@ -4,7 +4,10 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.nio.file.Paths;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -14,6 +17,8 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import redes.lib.CrcPolicy;
+
 /**
  * @author Robert Broketa
  * @author Hiago Rios
@@ -51,6 +56,52 @@ public class Server {
      */
     static final int DEFAULT_CLIENT_LIMIT = 4;
 
+    /**
+     * Default early reply mode
+     */
+    static final EarlyReply DEFAULT_EARLY_REPLY = EarlyReply.NONE;
+
+    /**
+     * Default CRC policy for uploaded images
+     */
+    static final CrcPolicy DEFAULT_CRC_POLICY = CrcPolicy.STRICT;
+
+    /**
+     * Default number of clients waiting for a free connection. Older clients do
+     * not know the "queued" line, so queueing is only done when asked for
+     */
+    static final int DEFAULT_QUEUE_DEPTH = 0;
+
+    /**
+     * Default time a client may wait for a free connection, in seconds
+     */
+    static final int DEFAULT_QUEUE_TIMEOUT = 30;
+
+    /**
+     * Default longest hidden message accepted, in megabytes
+     */
+    static final int DEFAULT_MAX_MESSAGE = 256;
+
+    /**
+     * Default memory taken by the cached results, in megabytes
+     */
+    static final int DEFAULT_CACHE_SIZE = 16;
+
+    /**
+     * Default connection handling mode
+     */
+    static final ServerMode DEFAULT_MODE = ServerMode.THREAD;
+
+    /**
+     * Default number of event loops in {@link ServerMode#NIO} mode
+     */
+    static final int DEFAULT_EVENT_LOOPS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Default most detailed level logged
+     */
+    static final LogLevel DEFAULT_LOG_LEVEL = LogLevel.INFO;
+
     /**
      * Server port
      */
@@ -61,6 +112,52 @@ public class Server {
      */
     static int maxConnections;
 
+    /**
+     * Number of clients waiting for a free connection
+     */
+    static int queueDepth;
+
+    /**
+     * Time a client may wait for a free connection, in seconds
+     */
+    static int queueTimeout;
+
+    /**
+     * Admission of the clients in {@link ServerMode#THREAD} and
+     * {@link ServerMode#VIRTUAL} modes
+     */
+    static AdmissionQueue admission;
+
+    /**
+     * When to answer a client, relative to the end of its upload
+     */
+    static EarlyReply earlyReply;
+
+    /**
+     * When the CRC of the uploaded chunks is checked
+     */
+    static CrcPolicy crcPolicy;
+
+    /**
+     * Longest hidden message chunk accepted, in bytes
+     */
+    static int maxMessageLength;
+
+    /**
+     * Results of previous uploads, {@code null} if disabled
+     */
+    static ResultCache cache;
+
+    /**
+     * How the clients connections are handled
+     */
+    static ServerMode mode;
+
+    /**
+     * Number of event loops in {@link ServerMode#NIO} mode
+     */
+    static int eventLoops;
+
     /**
      * Server application entry-point
      */
@@ -72,6 +169,12 @@ public class Server {
                 System.exit(0);
             }
 
+            var logLevel = DEFAULT_LOG_LEVEL;
+            if (line.getOptionValue("v") != null) {
+                logLevel = LogLevel.getEnum(line.getOptionValue("v"));
+            }
+            Log.setLevel(logLevel);
+
             port = DEFAULT_PORT;
             if (line.getOptionValue("p") != null) {
                 port = Integer.parseInt(line.getOptionValue("p"));
@@ -87,10 +190,90 @@ public class Server {
                 System.exit(2);
             }
 
-            listen(port, maxConnections);
+            queueDepth = DEFAULT_QUEUE_DEPTH;
+            if (line.getOptionValue("q") != null) {
+                queueDepth = Integer.parseInt(line.getOptionValue("q"));
+            }
+
+            queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+            if (line.getOptionValue("w") != null) {
+                queueTimeout = Integer.parseInt(line.getOptionValue("w"));
+            }
+
+            if (queueDepth < 0 || queueTimeout <= 0) {
+                System.err.println("Queue depth must not be negative and queue timeout must be at least 1");
+                System.exit(2);
+            }
+
+            earlyReply = DEFAULT_EARLY_REPLY;
+            if (line.getOptionValue("e") != null) {
+                earlyReply = EarlyReply.getEnum(line.getOptionValue("e"));
+            }
+
+            crcPolicy = DEFAULT_CRC_POLICY;
+            if (line.getOptionValue("r") != null) {
+                crcPolicy = CrcPolicy.getEnum(line.getOptionValue("r"));
+            }
+
+            var maxMessage = DEFAULT_MAX_MESSAGE;
+            if (line.getOptionValue("x") != null) {
+                maxMessage = Integer.parseInt(line.getOptionValue("x"));
+            }
+
+            if (maxMessage <= 0) {
+                System.err.println("Maximum message size must be at least 1");
+                System.exit(2);
+            }
+            // A chunk length is an integer
+            maxMessageLength = (int) Math.min(Integer.MAX_VALUE, maxMessage * 1024L * 1024L);
+
+            var cacheSize = DEFAULT_CACHE_SIZE;
+            if (line.getOptionValue("k") != null) {
+                cacheSize = Integer.parseInt(line.getOptionValue("k"));
+            }
+
+            if (cacheSize < 0) {
+                System.err.println("Cache size must not be negative");
+                System.exit(2);
+            }
+
+            var cacheFile = line.getOptionValue("f");
+            if (cacheSize > 0 || cacheFile != null) {
+                var cacheBytes = cacheSize * 1024L * 1024L;
+                cache = cacheFile != null ? new ResultCache(cacheBytes, Paths.get(cacheFile))
+                        : new ResultCache(cacheBytes);
+            }
+
+            mode = DEFAULT_MODE;
+            if (line.getOptionValue("m") != null) {
+                mode = ServerMode.getEnum(line.getOptionValue("m"));
+            }
+
+            eventLoops = DEFAULT_EVENT_LOOPS;
+            if (line.getOptionValue("l") != null) {
+                eventLoops = Integer.parseInt(line.getOptionValue("l"));
+            }
+
+            if (eventLoops <= 0) {
+                System.err.println("Event loops must be at least 1");
+                System.exit(2);
+            }
+
+            Metrics.register(maxConnections, cache);
+
+            if (mode == ServerMode.NIO) {
+                new NioServer(maxConnections, eventLoops, earlyReply, crcPolicy, maxMessageLength, cache).listen(port);
+            } else {
+                listen(port, maxConnections, executorOf(mode));
+            }
         } catch (ParseException exp) {
             System.err.println("Parsing failed.  Reason: " + exp.getMessage());
             printHelp();
+        } catch (IllegalArgumentException ex) {
+            System.err.println("Illegal Argument Error: " + ex.getMessage());
+            System.exit(2);
+        } catch (IOException ex) {
+            Log.error("Server exception: %s", ex.getMessage(), ex);
         }
     }
 
@@ -99,34 +282,67 @@ public class Server {
      * 
      * @param port           The port which the server will listen on
      * @param maxConnections The limit of simultaneous connections
+     * @param executor       Runs each connection handler
      */
-    private static void listen(int port, int maxConnections) {
-        AtomicInteger connectionsCounter = new AtomicInteger(0);
-        try (ServerSocket serverSocket = new ServerSocket(port)) {
-            System.out.println("Server is listening on port " + port);
-            System.out.println("Up to " + maxConnections + " connections available");
+    private static void listen(int port, int maxConnections, Executor executor) {
+        admission = new AdmissionQueue(maxConnections, queueDepth, TimeUnit.SECONDS.toMillis(queueTimeout),
+                (socket, admitted) -> serve(socket, admitted, executor));
+        try (ServerSocket serverSocket = new ServerSocket(port, maxConnections + queueDepth)) {
+            Log.info("Server is listening on port %d", port);
+            Log.info("Up to %d connections available, %d more clients may wait for %ds", maxConnections, queueDepth,
+                    queueTimeout);
 
             while (true) {
                 Socket socket = serverSocket.accept();
-                var writer = new PrintWriter(socket.getOutputStream(), true);
-                if (connectionsCounter.get() < maxConnections) {
-                    writer.println("ready");
-                    connectionsCounter.incrementAndGet();
-
-                    System.out.println(String.format("CLIENT %s - Connected", socket.getInetAddress()));
-
-                    new ServerConnection(socket, connectionsCounter).start();
-                } else {
-                    System.out.println("Reached connection limit");
-                    writer.println("Too many connections active. Try again later");
-                    writer.println("bye");
+                try {
+                    admission.admit(socket);
+                } catch (IOException ex) {
+                    Log.error("Server exception when admitting connection: %s", ex.getMessage());
                     socket.close();
                 }
             }
         } catch (IOException ex) {
-            System.out.println("Server exception: " + ex.getMessage());
-            ex.printStackTrace();
+            Log.error("Server exception: %s", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Tells an admitted client to begin and starts its handler
+     * 
+     * @param socket   The client socket, holding a connection slot
+     * @param admitted When the client was admitted, from {@link System#nanoTime()}
+     * @param executor Runs the connection handler
+     */
+    private static void serve(Socket socket, long admitted, Executor executor) {
+        try {
+            new PrintWriter(socket.getOutputStream(), true).println("ready");
+        } catch (IOException ex) {
+            // The handler finds out the connection is gone and releases the slot
+            Log.error("Server exception when starting connection: %s", ex.getMessage());
+        }
+        Metrics.record(Metrics.Stage.ACCEPT_TO_READY, System.nanoTime() - admitted);
+        Log.info("CLIENT %s - Connected", socket.getInetAddress());
+
+        executor.execute(new ServerConnection(socket, admission, earlyReply, crcPolicy, maxMessageLength, cache));
+    }
+
+    /**
+     * Creates the executor running the connection handlers of the given mode
+     * 
+     * @param mode {@link ServerMode#THREAD} or {@link ServerMode#VIRTUAL}
+     * @return An executor starting a new thread for each handler
+     */
+    private static Executor executorOf(ServerMode mode) {
+        if (mode == ServerMode.VIRTUAL) {
+            // Looked up at runtime, so the server still builds and runs on older Java versions
+            try {
+                var factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) factory.invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                Log.warn("Virtual threads need Java 21 or newer, using platform threads instead");
+            }
         }
+        return task -> new Thread(task).start();
     }
 
     /**
@@ -141,12 +357,61 @@ public class Server {
                 .desc("Defines the port to listen to. Defaults to " + DEFAULT_PORT).longOpt("port")
                 .valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
         Option maxClients = Option.builder("c").hasArg().argName("clients-limit")
-                .desc("Defines the maximum clients to accept simultaneously. Defaults to " + DEFAULT_CLIENT_LIMIT)
+                .desc("Defines the maximum clients to serve simultaneously. Defaults to " + DEFAULT_CLIENT_LIMIT)
                 .longOpt("max-clients").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option queueDepth = Option.builder("q").hasArg().argName("depth")
+                .desc("Defines how many clients may wait for a free connection, 0 rejects them right away. "
+                        + "Not used in NIO mode. Defaults to " + DEFAULT_QUEUE_DEPTH)
+                .longOpt("queue-depth").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option queueTimeout = Option.builder("w").hasArg().argName("seconds")
+                .desc("Defines how long a client may wait for a free connection. Defaults to "
+                        + DEFAULT_QUEUE_TIMEOUT)
+                .longOpt("queue-timeout").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option early = Option.builder("e").hasArg().argName("mode")
+                .desc("Answers as soon as the hidden message is found, then drains the rest of the upload (DRAIN) "
+                        + "or closes the connection (CLOSE). Defaults to " + DEFAULT_EARLY_REPLY)
+                .longOpt("early-reply").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option crc = Option.builder("r").hasArg().argName("policy")
+                .desc("Defines when the CRC of the uploaded chunks is checked: STRICT, CRITICAL_ONLY, LAZY or NONE "
+                        + "(trusted clients only). Defaults to " + DEFAULT_CRC_POLICY)
+                .longOpt("crc-policy").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option maxMessage = Option.builder("x").hasArg().argName("megabytes")
+                .desc("Defines the longest hidden message accepted, so a client cannot make the server allocate "
+                        + "more. Defaults to " + DEFAULT_MAX_MESSAGE)
+                .longOpt("max-message").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option cacheSize = Option.builder("k").hasArg().argName("megabytes")
+                .desc("Defines the memory taken by the results cached by image digest, 0 disables the cache. "
+                        + "Defaults to " + DEFAULT_CACHE_SIZE)
+                .longOpt("cache-size").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option cacheFile = Option.builder("f").hasArg().argName("path")
+                .desc("Also keeps the cached results in the given file, so they survive restarts")
+                .longOpt("cache-file").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option mode = Option.builder("m").hasArg().argName("mode")
+                .desc("Defines how connections are handled: a thread per connection (THREAD), a virtual thread per "
+                        + "connection (VIRTUAL, Java 21+) or a few event loops driving non-blocking sockets (NIO). "
+                        + "Defaults to " + DEFAULT_MODE)
+                .longOpt("mode").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option loops = Option.builder("l").hasArg().argName("count")
+                .desc("Defines the number of event loops in NIO mode. Defaults to the number of processors")
+                .longOpt("event-loops").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
+        Option logLevel = Option.builder("v").hasArg().argName("level")
+                .desc("Defines the most detailed messages logged: ERROR, WARN, INFO or DEBUG. Defaults to "
+                        + DEFAULT_LOG_LEVEL)
+                .longOpt("log-level").valueSeparator(DEFAULT_VALUE_SEPARATOR).build();
         Option help = Option.builder("h").desc("Prints this message").longOpt("help").build();
 
         options.addOption(port);
         options.addOption(maxClients);
+        options.addOption(queueDepth);
+        options.addOption(queueTimeout);
+        options.addOption(early);
+        options.addOption(crc);
+        options.addOption(maxMessage);
+        options.addOption(cacheSize);
+        options.addOption(cacheFile);
+        options.addOption(mode);
+        options.addOption(loops);
+        options.addOption(logLevel);
         options.addOption(help);
         return options;
     }
@@ -0,0 +1,33 @@
+package redes.server;
+
+/**
+ * How the server handles its clients connections
+ */
+public enum ServerMode {
+    /**
+     * One thread per connection, blocking on its socket
+     */
+    THREAD,
+    /**
+     * One virtual thread per connection, blocking on its socket. Needs Java 21 or
+     * newer, older runtimes fall back to {@link #THREAD}
+     */
+    VIRTUAL,
+    /**
+     * A fixed set of event loops driving non-blocking sockets
+     */
+    NIO;
+
+    /**
+     * Does the same as {@code Enum.valueOf}, but it normalizes the input
+     * beforehand
+     */
+    public static ServerMode getEnum(String value) throws IllegalArgumentException {
+        for (var v : values()) {
+            if (v.toString().equals(value.toUpperCase())) {
+                return v;
+            }
+        }
+        throw new IllegalArgumentException("Server mode not supported: " + value);
+    }
+}
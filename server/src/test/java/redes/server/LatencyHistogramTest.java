@@ -0,0 +1,64 @@
+package redes.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private static void assertWithin(double expected, double actual) {
+        var error = 1.0 / LatencyHistogram.SUB_BUCKETS;
+        assertTrue(expected + " vs " + actual, Math.abs(actual - expected) <= expected * error);
+    }
+
+    @Test
+    public void testPercentiles() {
+        var histogram = new LatencyHistogram();
+        for (var micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertWithin(500, histogram.getP50Micros());
+        assertWithin(990, histogram.getP99Micros());
+        assertEquals(1000, histogram.getMaxMicros(), 0);
+        assertEquals(500.5, histogram.getMeanMicros(), 0.001);
+    }
+
+    @Test
+    public void testBucketBounds() {
+        for (var value : new long[] { 0, 7, 8, 9, 1000, 123456789, Long.MAX_VALUE }) {
+            var index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(index));
+            assertTrue(index == 0 || value > LatencyHistogram.upperBoundOf(index - 1));
+        }
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        var histogram = new LatencyHistogram();
+        var threads = new ArrayList<Thread>();
+        for (var i = 0; i < 4; i++) {
+            var thread = new Thread(() -> {
+                for (var j = 0; j < 10000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, histogram.getCount());
+        assertEquals(9999, histogram.percentile(1));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+}
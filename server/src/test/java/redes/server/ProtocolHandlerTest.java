@@ -0,0 +1,56 @@
+package redes.server;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import redes.lib.Chunk;
+import redes.lib.ChunkType;
+import redes.lib.CrcPolicy;
+import redes.lib.Png;
+
+public class ProtocolHandlerTest {
+
+    private static String upload(byte[] image) throws IOException {
+        var answers = new ByteArrayOutputStream();
+        var handler = new ProtocolHandler("test", EarlyReply.NONE, CrcPolicy.STRICT, 1024, null,
+                message -> answers.write(message.array(), message.arrayOffset() + message.position(),
+                        message.remaining()));
+
+        var request = new ByteArrayOutputStream();
+        var dos = new DataOutputStream(request);
+        dos.writeUTF("image.png");
+        dos.writeLong(image.length);
+        dos.write(image);
+        handler.onData(ByteBuffer.wrap(request.toByteArray()));
+
+        assertTrue(handler.isFinished());
+        return answers.toString();
+    }
+
+    private static byte[] testingPng() {
+        return Png.fromChunks(List.of(new Chunk(ChunkType.fromString("FrSt"), "I am the first chunk".getBytes()),
+                new Chunk(ChunkType.fromString("IEND"), new byte[0]))).asByteArray();
+    }
+
+    @Test
+    public void testWholeImage() throws IOException {
+        assertTrue(upload(testingPng()).contains("There's no hidden message"));
+    }
+
+    @Test
+    public void testImageEndingInsideChunkHeader() throws IOException {
+        var bytes = testingPng();
+        // Signature, the first chunk, then half of the IEND header
+        var truncated = Arrays.copyOf(bytes, bytes.length - Chunk.OVERHEAD + 4);
+
+        assertTrue(upload(truncated).contains("Invalid image"));
+    }
+}
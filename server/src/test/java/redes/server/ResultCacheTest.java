@@ -0,0 +1,68 @@
+package redes.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import redes.lib.ScanResult;
+
+public class ResultCacheTest {
+
+    private static byte[] digest(int seed) {
+        var digest = new byte[32];
+        for (var i = 0; i < digest.length; i++) {
+            digest[i] = (byte) (seed * 31 + i);
+        }
+        return digest;
+    }
+
+    private static ResultCache.Entry entry(String message) {
+        return new ResultCache.Entry(ScanResult.Status.HIDDEN, message.getBytes());
+    }
+
+    @Test
+    public void testHitAndMiss() {
+        var cache = new ResultCache(1024 * 1024);
+        cache.put(digest(1), entry("hello"));
+
+        assertArrayEquals("hello".getBytes(), cache.get(digest(1)).data);
+        assertNull(cache.get(digest(2)));
+        assertEquals(1, cache.getMemoryHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        // Room for two small entries
+        var cache = new ResultCache(400);
+        cache.put(digest(1), entry("first"));
+        cache.put(digest(2), entry("second"));
+        cache.get(digest(1));
+        cache.put(digest(3), entry("third"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(digest(1)));
+        assertNull(cache.get(digest(2)));
+        assertNotNull(cache.get(digest(3)));
+    }
+
+    @Test
+    public void testDiskTierSurvivesReopening() throws IOException {
+        var file = Files.createTempFile("results", ".cache");
+        file.toFile().deleteOnExit();
+        new ResultCache(1024, file).put(digest(7), entry("persisted"));
+
+        var reopened = new ResultCache(1024, file);
+        var entry = reopened.get(digest(7));
+        assertEquals(ScanResult.Status.HIDDEN, entry.status);
+        assertArrayEquals("persisted".getBytes(), entry.data);
+        assertEquals(1, reopened.getDiskHits());
+        assertNull(reopened.get(digest(8)));
+    }
+}